@@ -27,8 +27,27 @@ package com.rylinaux.plugman;
  */
 
 import com.rylinaux.plugman.messaging.MessageFormatter;
+import com.rylinaux.plugman.util.CommandIndex;
+import com.rylinaux.plugman.util.DescriptorIndex;
+import com.rylinaux.plugman.util.JarWatcher;
+import com.rylinaux.plugman.util.LeakTracker;
+import com.rylinaux.plugman.util.PluginNameIndex;
+import com.rylinaux.plugman.util.PluginUtil;
+import com.rylinaux.plugman.util.ServerInternals;
+import com.rylinaux.plugman.util.PooledHttpClient;
+import com.rylinaux.plugman.util.RateLimiter;
+import com.rylinaux.plugman.util.SpiGetCache;
+import com.rylinaux.plugman.util.SpiGetClient;
+import com.rylinaux.plugman.util.ThreadUtil;
+import com.rylinaux.plugman.util.TimingHistory;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 
 import org.bukkit.plugin.java.JavaPlugin;
 
@@ -49,11 +68,66 @@ public class PlugMan extends JavaPlugin {
      */
     private List<String> ignoredPlugins = null;
 
+    /**
+     * The lower-cased names of the ignored plugins.
+     */
+    private Set<String> ignoredNames = null;
+
     /**
      * The message manager
      */
     private MessageFormatter messageFormatter = null;
 
+    /**
+     * The index of plugin descriptors in the plugins folder.
+     */
+    private DescriptorIndex descriptorIndex = null;
+
+    /**
+     * The HTTP client shared by all SpiGet requests.
+     */
+    private PooledHttpClient httpClient = null;
+
+    /**
+     * The cache of SpiGet lookups.
+     */
+    private SpiGetCache spiGetCache = null;
+
+    /**
+     * The client for the SpiGet API.
+     */
+    private SpiGetClient spiGetClient = null;
+
+    /**
+     * The timings of recent plugin operations.
+     */
+    private TimingHistory timingHistory = null;
+
+    /**
+     * The tracker of unloaded plugins' classloaders.
+     */
+    private LeakTracker leakTracker = null;
+
+    /**
+     * The index of commands to the plugins that own them.
+     */
+    private CommandIndex commandIndex = null;
+
+    /**
+     * The index of loaded plugins by name.
+     */
+    private PluginNameIndex pluginNameIndex = null;
+
+    /**
+     * The cached accessors for server internals.
+     */
+    private ServerInternals serverInternals = null;
+
+    /**
+     * The watcher that hot reloads replaced jars, null if hot reloading is disabled.
+     */
+    private JarWatcher jarWatcher = null;
+
     @Override
     public void onEnable() {
 
@@ -66,13 +140,81 @@ public class PlugMan extends JavaPlugin {
 
         initConfig();
 
+        timingHistory = new TimingHistory(this.getConfig().getInt("stats.history", 100));
+
+        initLeakTracker();
+
+        serverInternals = new ServerInternals(this.getServer().getPluginManager(), this.getClassLoader());
+        if (!serverInternals.getMissing().isEmpty()) {
+            this.getLogger().warning("Server internals not found, unloading may be limited: " + serverInternals.getMissing());
+        }
+
+        pluginNameIndex = new PluginNameIndex();
+        pluginNameIndex.rebuild(this.getServer().getPluginManager().getPlugins());
+
+        commandIndex = new CommandIndex();
+        commandIndex.rebuild(this.getServer().getPluginManager().getPlugins(), PluginUtil.getKnownCommands());
+
+        this.getServer().getPluginManager().registerEvents(new PlugManListener(), this);
+
+        initDescriptorIndex();
+
+        initJarWatcher();
+
+        httpClient = new PooledHttpClient(
+                this.getConfig().getInt("update-check.max-connections", 8),
+                this.getConfig().getInt("update-check.connect-timeout", 5000),
+                this.getConfig().getInt("update-check.read-timeout", 10000));
+
+        spiGetCache = new SpiGetCache(new File(this.getDataFolder(), "spiget-cache.json"),
+                TimeUnit.HOURS.toMillis(this.getConfig().getLong("update-check.resource-ttl", 168)),
+                TimeUnit.MINUTES.toMillis(this.getConfig().getLong("update-check.missing-ttl", 60)),
+                TimeUnit.MINUTES.toMillis(this.getConfig().getLong("update-check.version-ttl", 60)));
+        spiGetCache.read();
+
+        spiGetClient = new SpiGetClient(
+                this.getConfig().getString("update-check.api-url", SpiGetClient.DEFAULT_BASE_URL),
+                httpClient,
+                spiGetCache,
+                this.getConfig().getInt("update-check.parallelism", 8),
+                new RateLimiter(this.getConfig().getDouble("update-check.rate-limit", 10), this.getConfig().getInt("update-check.burst", 20)),
+                this.getConfig().getInt("update-check.max-retries", 3),
+                this.getConfig().getLong("update-check.backoff", 1000),
+                this.getConfig().getLong("update-check.max-backoff", 30000));
+
     }
 
     @Override
     public void onDisable() {
+        if (jarWatcher != null) {
+            jarWatcher.close();
+        }
+        if (descriptorIndex != null) {
+            descriptorIndex.save();
+        }
+        if (httpClient != null) {
+            if (httpClient.getRequests() > 0) {
+                this.getLogger().info("SpiGet requests: " + httpClient.getRequests() + " (" + httpClient.getNewConnections() + " new connections, " + httpClient.getReusedConnections() + " reused)");
+            }
+            httpClient.close();
+        }
+        if (spiGetCache != null) {
+            spiGetCache.save();
+        }
         instance = null;
         messageFormatter = null;
         ignoredPlugins = null;
+        ignoredNames = null;
+        descriptorIndex = null;
+        httpClient = null;
+        spiGetCache = null;
+        spiGetClient = null;
+        timingHistory = null;
+        leakTracker = null;
+        commandIndex = null;
+        pluginNameIndex = null;
+        serverInternals = null;
+        jarWatcher = null;
     }
 
     /**
@@ -81,6 +223,57 @@ public class PlugMan extends JavaPlugin {
     private void initConfig() {
         this.saveDefaultConfig();
         ignoredPlugins = this.getConfig().getStringList("ignored-plugins");
+        ignoredNames = new HashSet<>();
+        for (String name : ignoredPlugins) {
+            ignoredNames.add(name.toLowerCase());
+        }
+    }
+
+    /**
+     * Load the persisted descriptor index and bring it up to date in the background.
+     */
+    private void initDescriptorIndex() {
+        final DescriptorIndex index = new DescriptorIndex(this.getPluginLoader(), this.getDataFolder().getParentFile(), new File(this.getDataFolder(), "descriptors.json"));
+        index.read();
+        descriptorIndex = index;
+        ThreadUtil.async(new Runnable() {
+            @Override
+            public void run() {
+                index.refresh();
+                index.save();
+            }
+        });
+    }
+
+    /**
+     * Track the classloaders of unloaded plugins, checking them in the background.
+     */
+    private void initLeakTracker() {
+        final LeakTracker tracker = new LeakTracker(this.getConfig().getInt("unload.leak-check-cycles", 10));
+        leakTracker = tracker;
+        long interval = this.getConfig().getLong("unload.leak-check-interval", 30) * 20;
+        this.getServer().getScheduler().runTaskTimerAsynchronously(this, new Runnable() {
+            @Override
+            public void run() {
+                tracker.check();
+            }
+        }, interval, interval);
+    }
+
+    /**
+     * Start watching the plugins folder for replaced jars, if hot reloading is enabled.
+     */
+    private void initJarWatcher() {
+        if (!this.getConfig().getBoolean("hot-reload.enabled", false)) {
+            return;
+        }
+        jarWatcher = new JarWatcher(this.getDataFolder().getParentFile(), this.getConfig().getLong("hot-reload.debounce", 2000));
+        try {
+            jarWatcher.start();
+        } catch (IOException e) {
+            this.getLogger().log(Level.WARNING, "Could not watch the plugins folder, hot reloading is disabled", e);
+            jarWatcher = null;
+        }
     }
 
     /**
@@ -101,6 +294,15 @@ public class PlugMan extends JavaPlugin {
         return ignoredPlugins;
     }
 
+    /**
+     * Returns the lower-cased names of the ignored plugins.
+     *
+     * @return the ignored plugin names
+     */
+    public Set<String> getIgnoredNames() {
+        return ignoredNames;
+    }
+
     /**
      * Returns the message manager.
      *
@@ -110,4 +312,85 @@ public class PlugMan extends JavaPlugin {
         return messageFormatter;
     }
 
+    /**
+     * Returns the index of plugin descriptors.
+     *
+     * @return the descriptor index
+     */
+    public DescriptorIndex getDescriptorIndex() {
+        return descriptorIndex;
+    }
+
+    /**
+     * Returns the shared HTTP client.
+     *
+     * @return the HTTP client
+     */
+    public PooledHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    /**
+     * Returns the cache of SpiGet lookups.
+     *
+     * @return the SpiGet cache
+     */
+    public SpiGetCache getSpiGetCache() {
+        return spiGetCache;
+    }
+
+    /**
+     * Returns the client for the SpiGet API.
+     *
+     * @return the SpiGet client
+     */
+    public SpiGetClient getSpiGetClient() {
+        return spiGetClient;
+    }
+
+    /**
+     * Returns the timings of recent plugin operations.
+     *
+     * @return the timing history
+     */
+    public TimingHistory getTimingHistory() {
+        return timingHistory;
+    }
+
+    /**
+     * Returns the tracker of unloaded plugins' classloaders.
+     *
+     * @return the leak tracker
+     */
+    public LeakTracker getLeakTracker() {
+        return leakTracker;
+    }
+
+    /**
+     * Returns the index of commands to the plugins that own them.
+     *
+     * @return the command index
+     */
+    public CommandIndex getCommandIndex() {
+        return commandIndex;
+    }
+
+    /**
+     * Returns the index of loaded plugins by name.
+     *
+     * @return the plugin name index
+     */
+    public PluginNameIndex getPluginNameIndex() {
+        return pluginNameIndex;
+    }
+
+    /**
+     * Returns the cached accessors for server internals.
+     *
+     * @return the server internals
+     */
+    public ServerInternals getServerInternals() {
+        return serverInternals;
+    }
+
 }
\ No newline at end of file
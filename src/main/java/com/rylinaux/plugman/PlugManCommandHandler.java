@@ -90,6 +90,9 @@ public class PlugManCommandHandler implements CommandExecutor {
             case "check":
                 cmd = new CheckCommand(sender);
                 break;
+            case "stats":
+                cmd = new StatsCommand(sender);
+                break;
         }
 
         cmd.execute(sender, command, label, args);
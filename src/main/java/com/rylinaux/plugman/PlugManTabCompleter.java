@@ -26,11 +26,15 @@ package com.rylinaux.plugman;
  * #L%
  */
 
-import com.rylinaux.plugman.util.PluginUtil;
+import com.rylinaux.plugman.util.DescriptorIndex;
+import com.rylinaux.plugman.util.NameCompletionIndex;
+import com.rylinaux.plugman.util.PluginNameIndex;
+import com.rylinaux.plugman.util.ThreadUtil;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
 import org.bukkit.command.Command;
@@ -40,6 +44,8 @@ import org.bukkit.util.StringUtil;
 
 /**
  * Completes partial matches in command and plugin names.
+ * <p>
+ * Plugin names are served from sorted indexes that are only rebuilt when the loaded plugins or the plugins folder change.
  *
  * @author rylinaux
  */
@@ -48,7 +54,42 @@ public class PlugManTabCompleter implements TabCompleter {
     /**
      * Valid command names.
      */
-    private static final String[] COMMANDS = {"check", "disable", "dump", "enable", "help", "info", "list", "load", "lookup", "reload", "restart", "unload", "usage"};
+    private static final String[] COMMANDS = {"check", "disable", "dump", "enable", "help", "info", "list", "load", "lookup", "reload", "restart", "stats", "unload", "usage"};
+
+    /**
+     * How long to wait between looking for new jars in the plugins folder, in milliseconds.
+     */
+    private static final long REFRESH_INTERVAL = 10000;
+
+    /**
+     * The names of the loaded plugins.
+     */
+    private volatile NameCompletionIndex loaded = null;
+
+    /**
+     * The names of the indexed jars that are not loaded.
+     */
+    private volatile NameCompletionIndex unloaded = null;
+
+    /**
+     * The plugin name index modification count the loaded names were built from.
+     */
+    private int loadedModCount = -1;
+
+    /**
+     * The plugin name index modification count the unloaded names were built from.
+     */
+    private int unloadedModCount = -1;
+
+    /**
+     * The descriptor index modification count the unloaded names were built from.
+     */
+    private int unloadedDescriptorModCount = -1;
+
+    /**
+     * When the plugins folder was last rescanned for completion, in milliseconds since the epoch.
+     */
+    private long refreshedAt = 0;
 
     @Override
     public List<String> onTabComplete(CommandSender sender, Command command, String label, String[] args) {
@@ -61,16 +102,24 @@ public class PlugManTabCompleter implements TabCompleter {
                 String partialCommand = args[0];
                 List<String> commands = new ArrayList<>(Arrays.asList(COMMANDS));
                 StringUtil.copyPartialMatches(partialCommand, commands, completions);
+                Collections.sort(completions);
             }
 
             if (args.length == 2) {
-                String partialPlugin = args[1];
-                List<String> plugins = PluginUtil.getPluginNames(false);
-                StringUtil.copyPartialMatches(partialPlugin, plugins, completions);
+                NameCompletionIndex index = args[0].equalsIgnoreCase("load") ? getUnloaded() : getLoaded();
+                completions = index.complete(args[1]);
+            } else if (args.length > 2 && args[0].equalsIgnoreCase("unload")) {
+                // Unload takes several plugins, so complete every name after the first, skipping ones already given.
+                completions = getLoaded().complete(args[args.length - 1]);
+                for (int i = 1; i < args.length - 1; i++) {
+                    for (Iterator<String> it = completions.iterator(); it.hasNext(); ) {
+                        if (it.next().equalsIgnoreCase(args[i])) {
+                            it.remove();
+                        }
+                    }
+                }
             }
 
-            Collections.sort(completions);
-
             return completions;
 
         }
@@ -79,4 +128,63 @@ public class PlugManTabCompleter implements TabCompleter {
 
     }
 
+    /**
+     * Returns the completion index of the loaded plugins, rebuilding it if they changed.
+     *
+     * @return the loaded plugin names
+     */
+    private NameCompletionIndex getLoaded() {
+        PluginNameIndex names = PlugMan.getInstance().getPluginNameIndex();
+        int modCount = names.getModCount();
+        if (loaded == null || loadedModCount != modCount) {
+            loaded = new NameCompletionIndex(names.getNames());
+            loadedModCount = modCount;
+        }
+        return loaded;
+    }
+
+    /**
+     * Returns the completion index of the indexed jars that are not loaded, rebuilding it if either changed.
+     * <p>
+     * The plugins folder is rescanned in the background at most every {@link #REFRESH_INTERVAL} milliseconds,
+     * so jars dropped in after startup show up on a later keystroke.
+     *
+     * @return the names of unloaded plugins
+     */
+    private NameCompletionIndex getUnloaded() {
+
+        final DescriptorIndex descriptors = PlugMan.getInstance().getDescriptorIndex();
+        PluginNameIndex names = PlugMan.getInstance().getPluginNameIndex();
+
+        if (System.currentTimeMillis() - Math.max(refreshedAt, descriptors.getRefreshedAt()) > REFRESH_INTERVAL) {
+            refreshedAt = System.currentTimeMillis();
+            ThreadUtil.async(new Runnable() {
+                @Override
+                public void run() {
+                    if (descriptors.refresh()) {
+                        descriptors.save();
+                    }
+                }
+            });
+        }
+
+        int modCount = names.getModCount();
+        int descriptorModCount = descriptors.getModCount();
+
+        if (unloaded == null || unloadedModCount != modCount || unloadedDescriptorModCount != descriptorModCount) {
+            List<String> jars = descriptors.getNames();
+            for (Iterator<String> it = jars.iterator(); it.hasNext(); ) {
+                if (names.get(it.next()) != null) {
+                    it.remove();
+                }
+            }
+            unloaded = new NameCompletionIndex(jars);
+            unloadedModCount = modCount;
+            unloadedDescriptorModCount = descriptorModCount;
+        }
+
+        return unloaded;
+
+    }
+
 }
@@ -27,18 +27,20 @@ package com.rylinaux.plugman.command;
  */
 
 import com.rylinaux.plugman.PlugMan;
+import com.rylinaux.plugman.util.PluginUtil;
+import com.rylinaux.plugman.util.CheckReporter;
 import com.rylinaux.plugman.util.SpiGetUtil;
 import com.rylinaux.plugman.util.FlagUtil;
 import com.rylinaux.plugman.util.StringUtil;
 import com.rylinaux.plugman.util.ThreadUtil;
 import com.rylinaux.plugman.pojo.UpdateResult;
+import com.rylinaux.plugman.pojo.Version;
+import com.rylinaux.plugman.report.CheckReport;
 
-import java.io.File;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.util.Map;
+import java.util.List;
+import java.util.logging.Level;
 
-import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.plugin.Plugin;
@@ -106,7 +108,10 @@ public class CheckCommand extends AbstractCommand {
             return;
         }
 
-        final boolean toFile = FlagUtil.hasFlag(args, 'f');
+        final CheckReport.Format reportFormat = FlagUtil.hasFlag(args, 'j') ? CheckReport.Format.JSON
+                : FlagUtil.hasFlag(args, 'c') ? CheckReport.Format.CSV
+                : FlagUtil.hasFlag(args, 'f') ? CheckReport.Format.TEXT
+                : null;
 
         if (args[1].equalsIgnoreCase("all") || args[1].equalsIgnoreCase("*")) {
 
@@ -119,66 +124,28 @@ public class CheckCommand extends AbstractCommand {
                     @Override
                     public void run() {
 
-                        Map<String, UpdateResult> results = SpiGetUtil.checkUpToDate();
+                        List<String> pluginNames = PluginUtil.getPluginNames(false);
 
-                        final StringBuilder upToDate = new StringBuilder(), outOfDate = new StringBuilder(), unknown = new StringBuilder();
-
-                        for (Map.Entry<String, UpdateResult> entry : results.entrySet()) {
-
-                            UpdateResult.ResultType result = entry.getValue().getType();
-
-                            String currentVersion = Bukkit.getPluginManager().getPlugin(entry.getKey()).getDescription().getVersion();
-
-                            if (result == UpdateResult.ResultType.UP_TO_DATE) {
-                                upToDate.append(entry.getKey() + "(" + currentVersion + ") ");
-                            } else if (result == UpdateResult.ResultType.INVALID_PLUGIN || result == UpdateResult.ResultType.NOT_INSTALLED) {
-                                unknown.append(entry.getKey() + "(" + currentVersion + ") ");
-                            } else {
-                                outOfDate.append(entry.getKey() + "(" + currentVersion + " -> " + entry.getValue().getLatestVersion() + ") ");
-                            }
-
-                        }
-
-                        if (toFile) {
-
-                            File outFile = new File(PlugMan.getInstance().getDataFolder(), "updates.txt");
-
-                            PrintWriter writer = null;
+                        CheckReport report = null;
 
+                        if (reportFormat != null) {
                             try {
-
-                                writer = new PrintWriter(outFile);
-
-                                writer.println("Up-to-date (Installed):");
-                                writer.println(upToDate);
-
-                                writer.println("Out-of-date (Installed -> Latest):");
-                                writer.println(outOfDate);
-
-                                writer.println("Unknown (Installed):");
-                                writer.println(unknown);
-
+                                report = CheckReport.open(reportFormat, PlugMan.getInstance().getDataFolder());
                             } catch (IOException e) {
-
-                            } finally {
-                                if (writer != null) {
-                                    writer.close();
-                                }
+                                PlugMan.getInstance().getLogger().log(Level.WARNING, "Could not create the update report", e);
+                                sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("check.file-failed"));
+                                return;
                             }
+                        }
 
-                            sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("check.file-done", outFile.getPath()));
-
-                        } else {
+                        CheckReporter reporter = new CheckReporter(sender, pluginNames.size(), report);
 
-                            ThreadUtil.sync(new Runnable() {
-                                @Override
-                                public void run() {
-                                    sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("check.up-to-date-player", upToDate.toString()));
-                                    sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("check.out-of-date-player", outOfDate.toString()));
-                                    sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("check.unknown-player", unknown.toString()));
-                                }
-                            });
+                        reporter.start();
 
+                        try {
+                            SpiGetUtil.checkUpToDate(pluginNames, reporter);
+                        } finally {
+                            reporter.finish();
                         }
 
                     }
@@ -217,7 +184,14 @@ public class CheckCommand extends AbstractCommand {
                                 sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("check.out-of-date", result.getCurrentVersion(), result.getLatestVersion()));
                                 break;
                             case UP_TO_DATE:
-                                sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("check.up-to-date", result.getCurrentVersion()));
+                                if (result.getComparison() == Version.Comparison.AHEAD) {
+                                    sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("check.ahead", result.getCurrentVersion(), result.getLatestVersion()));
+                                } else {
+                                    sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("check.up-to-date", result.getCurrentVersion()));
+                                }
+                                break;
+                            case RATE_LIMITED:
+                                sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("check.rate-limited"));
                                 break;
                             default:
                                 sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("check.not-found-spigot"));
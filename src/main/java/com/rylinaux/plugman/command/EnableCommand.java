@@ -83,7 +83,7 @@ public class EnableCommand extends AbstractCommand {
      * @param args    the arguments supplied
      */
     @Override
-    public void execute(CommandSender sender, Command command, String label, String[] args) {
+    public void execute(final CommandSender sender, Command command, String label, String[] args) {
 
         if (!hasPermission()) {
             sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("error.no-permission"));
@@ -98,8 +98,12 @@ public class EnableCommand extends AbstractCommand {
 
         if (args[1].equalsIgnoreCase("all") || args[1].equalsIgnoreCase("*")) {
             if (hasPermission("all")) {
-                PluginUtil.enableAll();
-                sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("enable.all"));
+                PluginUtil.enableAll(sender, new Runnable() {
+                    @Override
+                    public void run() {
+                        sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("enable.all"));
+                    }
+                });
             } else {
                 sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("error.no-permission"));
             }
@@ -27,6 +27,7 @@ package com.rylinaux.plugman.command;
  */
 
 import com.rylinaux.plugman.PlugMan;
+import com.rylinaux.plugman.pojo.JarDescriptor;
 import com.rylinaux.plugman.util.PluginUtil;
 import com.rylinaux.plugman.util.StringUtil;
 
@@ -106,12 +107,18 @@ public class LoadCommand extends AbstractCommand {
 
         String name = StringUtil.consolidateStrings(args, 1);
 
+        JarDescriptor descriptor = PlugMan.getInstance().getDescriptorIndex().get(name);
+
+        if (descriptor != null) {
+            name = descriptor.getName();
+        }
+
         if (PluginUtil.isIgnored(name)) {
             sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("error.ignored"));
             return;
         }
 
-        sender.sendMessage(PluginUtil.load(name));
+        PluginUtil.loadAsync(name, sender);
 
     }
 }
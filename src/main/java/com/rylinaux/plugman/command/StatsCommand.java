@@ -0,0 +1,143 @@
+package com.rylinaux.plugman.command;
+
+/*
+ * #%L
+ * PlugMan
+ * %%
+ * Copyright (C) 2010 - 2015 PlugMan
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.google.common.base.Joiner;
+
+import com.rylinaux.plugman.PlugMan;
+import com.rylinaux.plugman.pojo.OperationTiming;
+import com.rylinaux.plugman.util.LeakTracker;
+import com.rylinaux.plugman.util.PooledHttpClient;
+import com.rylinaux.plugman.util.StringUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+
+/**
+ * Command that shows the timings of recent plugin operations.
+ *
+ * @author rylinaux
+ */
+public class StatsCommand extends AbstractCommand {
+
+    /**
+     * The name of the command.
+     */
+    public static final String NAME = "Stats";
+
+    /**
+     * The description of the command.
+     */
+    public static final String DESCRIPTION = "Show timings of recent plugin operations.";
+
+    /**
+     * The main permission of the command.
+     */
+    public static final String PERMISSION = "plugman.stats";
+
+    /**
+     * The proper usage of the command.
+     */
+    public static final String USAGE = "/plugman stats [plugin]";
+
+    /**
+     * The sub permissions of the command.
+     */
+    public static final String[] SUB_PERMISSIONS = {""};
+
+    /**
+     * The maximum number of operations to show.
+     */
+    private static final int LIMIT = 10;
+
+    /**
+     * Construct out object.
+     *
+     * @param sender the command sender
+     */
+    public StatsCommand(CommandSender sender) {
+        super(sender, NAME, DESCRIPTION, PERMISSION, SUB_PERMISSIONS, USAGE);
+    }
+
+    /**
+     * Execute the command.
+     *
+     * @param sender  the sender of the command
+     * @param command the command being done
+     * @param label   the name of the command
+     * @param args    the arguments supplied
+     */
+    @Override
+    public void execute(CommandSender sender, Command command, String label, String[] args) {
+
+        if (!hasPermission()) {
+            sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("error.no-permission"));
+            return;
+        }
+
+        String pluginName = args.length > 1 ? StringUtil.consolidateStrings(args, 1) : null;
+
+        List<OperationTiming> timings = PlugMan.getInstance().getTimingHistory().getRecent(pluginName, LIMIT);
+
+        if (timings.isEmpty()) {
+            sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("stats.empty"));
+        } else {
+            sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("stats.header", timings.size()));
+            for (OperationTiming timing : timings) {
+                List<String> phases = new ArrayList<>();
+                for (Map.Entry<String, Long> phase : timing.getPhases().entrySet()) {
+                    phases.add(phase.getKey() + " " + format(phase.getValue()));
+                }
+                sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format(false, "stats.operation", timing.getOperation(), timing.getPluginName(), format(timing.getTotal()), Joiner.on(", ").join(phases)));
+            }
+        }
+
+        PooledHttpClient httpClient = PlugMan.getInstance().getHttpClient();
+
+        sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format(false, "stats.http", httpClient.getRequests(), httpClient.getNewConnections(), httpClient.getReusedConnections()));
+
+        for (Map.Entry<LeakTracker.TrackedLoader, Long> suspect : PlugMan.getInstance().getLeakTracker().getSuspects().entrySet()) {
+            sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format(false, "stats.leak", suspect.getKey().getPluginName(), suspect.getValue()));
+        }
+
+    }
+
+    /**
+     * Format a duration for display.
+     *
+     * @param nanos the duration in nanoseconds
+     * @return the duration in milliseconds, to two decimal places
+     */
+    private static String format(long nanos) {
+        return String.format("%.2fms", nanos / 1000000.0);
+    }
+
+}
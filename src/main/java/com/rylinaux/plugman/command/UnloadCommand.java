@@ -29,6 +29,10 @@ package com.rylinaux.plugman.command;
 import com.rylinaux.plugman.PlugMan;
 import com.rylinaux.plugman.util.PluginUtil;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.plugin.Plugin;
@@ -58,7 +62,7 @@ public class UnloadCommand extends AbstractCommand {
     /**
      * The proper usage of the command.
      */
-    public static final String USAGE = "/plugman unload <plugin>";
+    public static final String USAGE = "/plugman unload <plugin> [plugin...]";
 
     /**
      * The sub permissions of the command.
@@ -98,18 +102,58 @@ public class UnloadCommand extends AbstractCommand {
 
         Plugin target = PluginUtil.getPluginByName(args, 1);
 
-        if (target == null) {
-            sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("error.invalid-plugin"));
-            sendUsage();
+        if (target != null) {
+
+            if (PluginUtil.isIgnored(target)) {
+                sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("error.ignored"));
+                return;
+            }
+
+            sender.sendMessage(PluginUtil.unload(target));
             return;
+
+        }
+
+        // Not a single plugin name - treat each argument as a plugin name or pattern and unload them together.
+        Set<Plugin> targets = new LinkedHashSet<>();
+
+        for (int i = 1; i < args.length; i++) {
+
+            if (args[i].contains("*") || args[i].contains("?")) {
+                for (Plugin plugin : PluginUtil.matchPlugins(args[i])) {
+                    if (!PluginUtil.isIgnored(plugin)) {
+                        targets.add(plugin);
+                    }
+                }
+                continue;
+            }
+
+            Plugin plugin = PluginUtil.getPluginByName(args[i]);
+
+            if (plugin == null) {
+                sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("error.invalid-plugin"));
+                sendUsage();
+                return;
+            }
+
+            if (PluginUtil.isIgnored(plugin)) {
+                sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("error.ignored"));
+                return;
+            }
+
+            targets.add(plugin);
+
         }
 
-        if (PluginUtil.isIgnored(target)) {
-            sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("error.ignored"));
+        if (targets.isEmpty()) {
+            sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("error.invalid-plugin"));
+            sendUsage();
             return;
         }
 
-        sender.sendMessage(PluginUtil.unload(target));
+        for (String message : PluginUtil.unload(new ArrayList<>(targets))) {
+            sender.sendMessage(message);
+        }
 
     }
 }
@@ -26,6 +26,9 @@ package com.rylinaux.plugman.messaging;
  * #L%
  */
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.bukkit.ChatColor;
 
 /**
@@ -40,11 +43,27 @@ public class MessageFormatter {
      */
     private final MessageFile messageFile;
 
+    /**
+     * The compiled messages, keyed by their path.
+     */
+    private final Map<String, MessageTemplate> templates = new ConcurrentHashMap<>();
+
+    /**
+     * The translated prefix.
+     */
+    private final String prefix;
+
     /**
      * Construct our object.
      */
     public MessageFormatter() {
         this.messageFile = new MessageFile("messages.yml");
+        this.prefix = ChatColor.translateAlternateColorCodes('&', String.valueOf(messageFile.get("prefix")));
+        for (String key : messageFile.getConfig().getKeys(true)) {
+            if (messageFile.getConfig().isString(key)) {
+                templates.put(key, new MessageTemplate(messageFile.get(key)));
+            }
+        }
     }
 
     /**
@@ -67,10 +86,12 @@ public class MessageFormatter {
      * @return the formatted String
      */
     public String format(boolean prefix, String key, Object... args) {
-        String message = prefix ? messageFile.get("prefix") + messageFile.get(key) : messageFile.get(key);
-        for (int i = 0; i < args.length; i++)
-            message = message.replace("{" + i + "}", String.valueOf(args[i]));
-        return ChatColor.translateAlternateColorCodes('&', message);
+        MessageTemplate template = templates.get(key);
+        if (template == null) {
+            template = new MessageTemplate(String.valueOf(messageFile.get(key)));
+            templates.put(key, template);
+        }
+        return template.format(prefix ? this.prefix : "", args);
     }
 
     /**
@@ -80,7 +101,7 @@ public class MessageFormatter {
      * @return the message with the prefix.
      */
     public String prefix(String msg) {
-        return ChatColor.translateAlternateColorCodes('&', messageFile.get("prefix") + msg);
+        return prefix + ChatColor.translateAlternateColorCodes('&', msg);
     }
 
     /**
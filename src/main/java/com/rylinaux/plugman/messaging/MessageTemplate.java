@@ -0,0 +1,183 @@
+package com.rylinaux.plugman.messaging;
+
+/*
+ * #%L
+ * PlugMan
+ * %%
+ * Copyright (C) 2010 - 2015 PlugMan
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bukkit.ChatColor;
+
+/**
+ * A message compiled for repeated formatting.
+ * <p>
+ * Colour codes are translated once, and the message is split into literal text and {@code {n}} placeholders,
+ * so formatting is a single pass over the segments.
+ *
+ * @author rylinaux
+ */
+public class MessageTemplate {
+
+    /**
+     * The literal text before each placeholder, plus the text after the last one.
+     */
+    private final String[] literals;
+
+    /**
+     * The argument index of each placeholder.
+     */
+    private final int[] placeholders;
+
+    /**
+     * The combined length of the literal text.
+     */
+    private final int length;
+
+    /**
+     * Compile a message.
+     *
+     * @param message the raw message, with '&' colour codes.
+     */
+    public MessageTemplate(String message) {
+
+        String translated = ChatColor.translateAlternateColorCodes('&', message);
+
+        List<String> literals = new ArrayList<>();
+        List<Integer> placeholders = new ArrayList<>();
+
+        int start = 0;
+        int open;
+
+        while ((open = translated.indexOf('{', start)) != -1) {
+
+            int close = translated.indexOf('}', open);
+
+            if (close == -1) {
+                break;
+            }
+
+            int index = parseIndex(translated, open + 1, close);
+
+            if (index == -1) {
+                // Not a placeholder - keep the brace as text.
+                literals.add(translated.substring(start, open + 1));
+                placeholders.add(-1);
+                start = open + 1;
+                continue;
+            }
+
+            literals.add(translated.substring(start, open));
+            placeholders.add(index);
+            start = close + 1;
+
+        }
+
+        literals.add(translated.substring(start));
+
+        this.literals = literals.toArray(new String[literals.size()]);
+        this.placeholders = new int[placeholders.size()];
+
+        int length = 0;
+
+        for (int i = 0; i < this.placeholders.length; i++) {
+            this.placeholders[i] = placeholders.get(i);
+        }
+
+        for (String literal : this.literals) {
+            length += literal.length();
+        }
+
+        this.length = length;
+
+    }
+
+    /**
+     * Format the message.
+     *
+     * @param prefix the already translated prefix to prepend, may be empty.
+     * @param args   the arguments to substitute.
+     * @return the formatted message.
+     */
+    public String format(String prefix, Object... args) {
+
+        StringBuilder builder = new StringBuilder(prefix.length() + length + 16 * placeholders.length);
+
+        builder.append(prefix);
+
+        for (int i = 0; i < placeholders.length; i++) {
+
+            builder.append(literals[i]);
+
+            int index = placeholders[i];
+
+            if (index == -1) {
+                continue;
+            }
+
+            if (index < args.length) {
+                builder.append(args[index]);
+            } else {
+                // Leave placeholders without an argument as they were.
+                builder.append('{').append(index).append('}');
+            }
+
+        }
+
+        builder.append(literals[literals.length - 1]);
+
+        return builder.toString();
+
+    }
+
+    /**
+     * Parse the argument index between the braces of a placeholder.
+     *
+     * @param text  the message.
+     * @param start the index after the opening brace.
+     * @param end   the index of the closing brace.
+     * @return the argument index, or -1 if the text is not a placeholder.
+     */
+    private static int parseIndex(String text, int start, int end) {
+
+        if (start == end || end - start > 9) {
+            return -1;
+        }
+
+        int index = 0;
+
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            index = index * 10 + (c - '0');
+        }
+
+        return index;
+
+    }
+
+}
@@ -0,0 +1,193 @@
+package com.rylinaux.plugman.pojo;
+
+/*
+ * #%L
+ * PlugMan
+ * %%
+ * Copyright (C) 2010 - 2015 PlugMan
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents the cached descriptor of a jar in the plugins folder.
+ *
+ * @author rylinaux
+ */
+public class JarDescriptor {
+
+    /**
+     * The name of the jar file.
+     */
+    private final String fileName;
+
+    /**
+     * The size of the jar file when it was read.
+     */
+    private final long size;
+
+    /**
+     * The last modification time of the jar file when it was read.
+     */
+    private final long modified;
+
+    /**
+     * The name of the plugin, or null if the jar has no valid description.
+     */
+    private final String name;
+
+    /**
+     * The version of the plugin.
+     */
+    private final String version;
+
+    /**
+     * The plugins this plugin depends on.
+     */
+    private final List<String> depend;
+
+    /**
+     * The plugins this plugin soft-depends on.
+     */
+    private final List<String> softDepend;
+
+    /**
+     * The plugins this plugin must load before.
+     */
+    private final List<String> loadBefore;
+
+    /**
+     * Construct a descriptor for a jar without a valid description.
+     *
+     * @param file the jar file.
+     */
+    public JarDescriptor(File file) {
+        this(file, null, null, null, null, null);
+    }
+
+    /**
+     * Construct the object.
+     *
+     * @param file       the jar file.
+     * @param name       the name of the plugin.
+     * @param version    the version of the plugin.
+     * @param depend     the plugins this plugin depends on.
+     * @param softDepend the plugins this plugin soft-depends on.
+     * @param loadBefore the plugins this plugin must load before.
+     */
+    public JarDescriptor(File file, String name, String version, List<String> depend, List<String> softDepend, List<String> loadBefore) {
+        this.fileName = file.getName();
+        this.size = file.length();
+        this.modified = file.lastModified();
+        this.name = name;
+        this.version = version;
+        this.depend = depend;
+        this.softDepend = softDepend;
+        this.loadBefore = loadBefore;
+    }
+
+    /**
+     * Get the name of the jar file.
+     *
+     * @return the name of the jar file.
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Get the name of the plugin.
+     *
+     * @return the name of the plugin, or null if the description is invalid.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the version of the plugin.
+     *
+     * @return the version of the plugin.
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Get the plugins this plugin depends on.
+     *
+     * @return the hard dependencies.
+     */
+    public List<String> getDepend() {
+        return depend == null ? Collections.<String>emptyList() : depend;
+    }
+
+    /**
+     * Get the plugins this plugin soft-depends on.
+     *
+     * @return the soft dependencies.
+     */
+    public List<String> getSoftDepend() {
+        return softDepend == null ? Collections.<String>emptyList() : softDepend;
+    }
+
+    /**
+     * Get the plugins this plugin must load before.
+     *
+     * @return the plugins to load before.
+     */
+    public List<String> getLoadBefore() {
+        return loadBefore == null ? Collections.<String>emptyList() : loadBefore;
+    }
+
+    /**
+     * Check whether the jar has a valid description.
+     *
+     * @return true if the description is valid.
+     */
+    public boolean isValid() {
+        return name != null;
+    }
+
+    /**
+     * Check whether the jar file is unchanged since it was read.
+     *
+     * @param file the jar file.
+     * @return true if the size and modification time still match.
+     */
+    public boolean matches(File file) {
+        return file.isFile() && file.length() == size && file.lastModified() == modified;
+    }
+
+    /**
+     * Check whether another descriptor was read from the same, unchanged jar file.
+     *
+     * @param other the other descriptor.
+     * @return true if the file name, size and modification time match.
+     */
+    public boolean matches(JarDescriptor other) {
+        return fileName.equals(other.fileName) && size == other.size && modified == other.modified;
+    }
+
+}
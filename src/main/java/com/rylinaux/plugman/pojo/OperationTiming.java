@@ -0,0 +1,167 @@
+package com.rylinaux.plugman.pojo;
+
+/*
+ * #%L
+ * PlugMan
+ * %%
+ * Copyright (C) 2010 - 2015 PlugMan
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Represents the phase timings of a single lifecycle operation on a plugin.
+ *
+ * @author rylinaux
+ */
+public class OperationTiming {
+
+    /**
+     * The name of the operation.
+     */
+    private final String operation;
+
+    /**
+     * The name of the plugin.
+     */
+    private String pluginName;
+
+    /**
+     * When the operation started, in milliseconds since the epoch.
+     */
+    private final long startedAt;
+
+    /**
+     * When the last phase ended, in nanoseconds.
+     */
+    private long last;
+
+    /**
+     * The sum of the recorded phases, in nanoseconds.
+     */
+    private long total;
+
+    /**
+     * The duration of each phase, in nanoseconds.
+     */
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+
+    /**
+     * Start timing an operation.
+     *
+     * @param operation  the name of the operation.
+     * @param pluginName the name of the plugin.
+     */
+    public OperationTiming(String operation, String pluginName) {
+        this.operation = operation;
+        this.pluginName = pluginName;
+        this.startedAt = System.currentTimeMillis();
+        this.last = System.nanoTime();
+    }
+
+    /**
+     * Record the end of a phase; the phase spans from the end of the previous one until now.
+     *
+     * @param phase the name of the phase.
+     */
+    public synchronized void mark(String phase) {
+        long now = System.nanoTime();
+        add(phase, now - last);
+        last = now;
+    }
+
+    /**
+     * Restart the phase clock without recording anything, so time spent waiting, such as for a hop to the main thread, is left out.
+     */
+    public synchronized void resume() {
+        last = System.nanoTime();
+    }
+
+    /**
+     * Add a measured duration to a phase.
+     *
+     * @param phase    the name of the phase.
+     * @param duration the duration in nanoseconds.
+     */
+    public synchronized void add(String phase, long duration) {
+        Long previous = phases.get(phase);
+        phases.put(phase, (previous == null ? 0 : previous) + duration);
+        total += duration;
+    }
+
+    /**
+     * Get the name of the operation.
+     *
+     * @return the name of the operation.
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * Get the name of the plugin.
+     *
+     * @return the name of the plugin.
+     */
+    public String getPluginName() {
+        return pluginName;
+    }
+
+    /**
+     * Set the name of the plugin, once it is known.
+     *
+     * @param pluginName the name of the plugin.
+     */
+    public void setPluginName(String pluginName) {
+        this.pluginName = pluginName;
+    }
+
+    /**
+     * Get when the operation started.
+     *
+     * @return the start time in milliseconds since the epoch.
+     */
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    /**
+     * Get the time spent in the recorded phases.
+     *
+     * @return the total duration in nanoseconds.
+     */
+    public synchronized long getTotal() {
+        return total;
+    }
+
+    /**
+     * Get the duration of each phase.
+     *
+     * @return the phase durations in nanoseconds, in the order they were recorded.
+     */
+    public synchronized Map<String, Long> getPhases() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(phases));
+    }
+
+}
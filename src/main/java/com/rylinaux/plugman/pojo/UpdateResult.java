@@ -26,6 +26,8 @@ package com.rylinaux.plugman.pojo;
  * #L%
  */
 
+import java.util.Comparator;
+
 /**
  * Represents a result from an update check from DBO.
  *
@@ -48,11 +50,37 @@ public class UpdateResult {
      */
     private final String latestVersion;
 
+    /**
+     * How the current version compares to the latest one, or null if they were not compared.
+     */
+    private final Version.Comparison comparison;
+
+    /**
+     * The SpiGet resource id of the plugin, or -1 if it is not known.
+     */
+    private final long resourceId;
+
+    /**
+     * How long the check took, in milliseconds.
+     */
+    private final long latency;
+
+    /**
+     * Orders results from the most to the least in need of attention: behind, incomparable, rate limited, unknown,
+     * ahead and up-to-date.
+     */
+    public static final Comparator<UpdateResult> SEVERITY = new Comparator<UpdateResult>() {
+        @Override
+        public int compare(UpdateResult first, UpdateResult second) {
+            return Integer.compare(first.getSeverity(), second.getSeverity());
+        }
+    };
+
     /**
      * Represents the type of the result.
      */
     public enum ResultType {
-        INVALID_PLUGIN, NOT_INSTALLED, OUT_OF_DATE, UP_TO_DATE
+        INVALID_PLUGIN, NOT_INSTALLED, OUT_OF_DATE, UP_TO_DATE, RATE_LIMITED
     }
 
     /**
@@ -82,9 +110,38 @@ public class UpdateResult {
      * @param latestVersion  the latest version of the plugin.
      */
     public UpdateResult(ResultType type, String currentVersion, String latestVersion) {
+        this(type, currentVersion, latestVersion, null);
+    }
+
+    /**
+     * Construct the object with the comparison of the versions.
+     *
+     * @param type           the type of the result.
+     * @param currentVersion the current version of the plugin.
+     * @param latestVersion  the latest version of the plugin.
+     * @param comparison     how the current version compares to the latest one.
+     */
+    public UpdateResult(ResultType type, String currentVersion, String latestVersion, Version.Comparison comparison) {
+        this(type, currentVersion, latestVersion, comparison, -1, 0);
+    }
+
+    /**
+     * Construct the object with the details of the check.
+     *
+     * @param type           the type of the result.
+     * @param currentVersion the current version of the plugin.
+     * @param latestVersion  the latest version of the plugin.
+     * @param comparison     how the current version compares to the latest one, or null if they were not compared.
+     * @param resourceId     the SpiGet resource id of the plugin, or -1 if it is not known.
+     * @param latency        how long the check took, in milliseconds.
+     */
+    public UpdateResult(ResultType type, String currentVersion, String latestVersion, Version.Comparison comparison, long resourceId, long latency) {
         this.type = type;
         this.currentVersion = currentVersion;
         this.latestVersion = latestVersion;
+        this.comparison = comparison;
+        this.resourceId = resourceId;
+        this.latency = latency;
     }
 
     /**
@@ -114,4 +171,49 @@ public class UpdateResult {
         return latestVersion;
     }
 
+    /**
+     * Get how the current version compares to the latest one.
+     *
+     * @return the comparison, or null if the versions were not compared.
+     */
+    public Version.Comparison getComparison() {
+        return comparison;
+    }
+
+    /**
+     * Get the SpiGet resource id of the plugin.
+     *
+     * @return the resource id, or -1 if it is not known.
+     */
+    public long getResourceId() {
+        return resourceId;
+    }
+
+    /**
+     * Get how long the check took.
+     *
+     * @return the latency in milliseconds.
+     */
+    public long getLatency() {
+        return latency;
+    }
+
+    /**
+     * Get how much the result needs attention, lower being more urgent.
+     *
+     * @return the severity.
+     */
+    public int getSeverity() {
+        switch (type) {
+            case OUT_OF_DATE:
+                return comparison == Version.Comparison.INCOMPARABLE ? 1 : 0;
+            case RATE_LIMITED:
+                return 2;
+            case UP_TO_DATE:
+                return comparison == Version.Comparison.AHEAD ? 4 : 5;
+            default:
+                return 3;
+        }
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,317 @@
+package com.rylinaux.plugman.pojo;
+
+/*
+ * #%L
+ * PlugMan
+ * %%
+ * Copyright (C) 2010 - 2015 PlugMan
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Represents a parsed plugin version.
+ * <p>
+ * A version is a dotted numeric release, such as {@code 2.1.6}, optionally followed by a qualifier, such as
+ * {@code -beta.2} or {@code -SNAPSHOT}. Common prefixes like {@code v} and build metadata, either after {@code +} or
+ * a build number such as {@code -b100} or {@code -build.42} at the very end, are ignored. Anywhere else {@code b}
+ * means beta, so {@code 1.0b2} is the second beta of 1.0. Qualifiers are ordered like Maven's: alpha, beta, milestone, rc, snapshot, release, sp.
+ *
+ * @author rylinaux
+ */
+public class Version {
+
+    /**
+     * Matches the prefixes commonly put before a version number.
+     */
+    private static final Pattern PREFIX = Pattern.compile("^(?:v|ver|version|rel|release|build)[\\s._-]*(?=\\d)");
+
+    /**
+     * Matches the dotted numeric release at the start of a version.
+     */
+    private static final Pattern RELEASE = Pattern.compile("^\\d+(?:\\.\\d+)*");
+
+    /**
+     * Matches the tokens of a qualifier: runs of digits or of letters.
+     */
+    private static final Pattern TOKEN = Pattern.compile("\\d+|\\p{L}+");
+
+    /**
+     * Matches a build number at the end of a version.
+     */
+    private static final Pattern BUILD = Pattern.compile("-(?:b|build)[._-]?\\d+$");
+
+    /**
+     * The rank of qualifiers that are not known.
+     */
+    private static final int UNKNOWN = -1;
+
+    /**
+     * The rank of a release, which is also what a missing qualifier compares as.
+     */
+    private static final int RELEASE_RANK = 5;
+
+    /**
+     * The longest number that is compared numerically.
+     */
+    private static final int MAX_DIGITS = 18;
+
+    /**
+     * Represents how an installed version compares to the latest one.
+     */
+    public enum Comparison {
+        AHEAD, BEHIND, EQUAL, INCOMPARABLE
+    }
+
+    /**
+     * The version as given.
+     */
+    private final String raw;
+
+    /**
+     * The numbers of the release, or null if the version does not start with one.
+     */
+    private final long[] release;
+
+    /**
+     * The tokens of the qualifier, each a Long or a String.
+     */
+    private final List<Object> qualifier;
+
+    /**
+     * Construct the object.
+     *
+     * @param raw       the version as given.
+     * @param release   the numbers of the release, or null if the version does not start with one.
+     * @param qualifier the tokens of the qualifier.
+     */
+    private Version(String raw, long[] release, List<Object> qualifier) {
+        this.raw = raw;
+        this.release = release;
+        this.qualifier = qualifier;
+    }
+
+    /**
+     * Parse a version.
+     *
+     * @param raw the version as given.
+     * @return the parsed version, which is not comparable to others if it does not start with a number.
+     */
+    public static Version parse(String raw) {
+
+        String version = raw.trim().toLowerCase(Locale.ROOT);
+
+        int metadata = version.indexOf('+');
+
+        if (metadata >= 0) {
+            version = version.substring(0, metadata);
+        }
+
+        version = BUILD.matcher(version).replaceFirst("");
+        version = PREFIX.matcher(version).replaceFirst("");
+
+        Matcher matcher = RELEASE.matcher(version);
+
+        if (!matcher.find()) {
+            return new Version(raw, null, Collections.emptyList());
+        }
+
+        String[] parts = matcher.group().split("\\.");
+        long[] release = new long[parts.length];
+
+        for (int i = 0; i < parts.length; i++) {
+            if (parts[i].length() > MAX_DIGITS) {
+                return new Version(raw, null, Collections.emptyList());
+            }
+            release[i] = Long.parseLong(parts[i]);
+        }
+
+        List<Object> qualifier = new ArrayList<>();
+
+        Matcher tokens = TOKEN.matcher(version.substring(matcher.end()));
+
+        while (tokens.find()) {
+            String token = tokens.group();
+            if (Character.isDigit(token.charAt(0))) {
+                if (token.length() > MAX_DIGITS) {
+                    return new Version(raw, null, Collections.emptyList());
+                }
+                qualifier.add(Long.parseLong(token));
+            } else {
+                qualifier.add(token);
+            }
+        }
+
+        return new Version(raw, release, qualifier);
+
+    }
+
+    /**
+     * Get the version as given.
+     *
+     * @return the version.
+     */
+    public String getRaw() {
+        return raw;
+    }
+
+    /**
+     * Check whether the version starts with a release number and can be compared.
+     *
+     * @return true if the version was understood.
+     */
+    public boolean isParsed() {
+        return release != null;
+    }
+
+    /**
+     * Compare this version, as the installed one, with another.
+     *
+     * @param latest the latest version.
+     * @return whether this version is ahead of, behind or equal to the latest one, or incomparable.
+     */
+    public Comparison compareTo(Version latest) {
+
+        if (raw.trim().equalsIgnoreCase(latest.raw.trim())) {
+            return Comparison.EQUAL;
+        }
+
+        if (release == null || latest.release == null) {
+            return Comparison.INCOMPARABLE;
+        }
+
+        for (int i = 0; i < Math.max(release.length, latest.release.length); i++) {
+            int result = Long.compare(i < release.length ? release[i] : 0, i < latest.release.length ? latest.release[i] : 0);
+            if (result != 0) {
+                return result > 0 ? Comparison.AHEAD : Comparison.BEHIND;
+            }
+        }
+
+        for (int i = 0; i < Math.max(qualifier.size(), latest.qualifier.size()); i++) {
+
+            Object mine = i < qualifier.size() ? qualifier.get(i) : null;
+            Object theirs = i < latest.qualifier.size() ? latest.qualifier.get(i) : null;
+
+            Integer result = compareTokens(mine, theirs);
+
+            if (result == null) {
+                return Comparison.INCOMPARABLE;
+            } else if (result != 0) {
+                return result > 0 ? Comparison.AHEAD : Comparison.BEHIND;
+            }
+
+        }
+
+        return Comparison.EQUAL;
+
+    }
+
+    @Override
+    public String toString() {
+        return raw;
+    }
+
+    /**
+     * Compare two qualifier tokens, a missing token standing for a zero or a release.
+     *
+     * @param mine   the token of this version, may be null.
+     * @param theirs the token of the other version, may be null.
+     * @return the comparison, or null if the tokens cannot be ordered.
+     */
+    private static Integer compareTokens(Object mine, Object theirs) {
+
+        if (mine == null) {
+            mine = theirs instanceof Long ? (Object) 0L : "";
+        }
+
+        if (theirs == null) {
+            theirs = mine instanceof Long ? (Object) 0L : "";
+        }
+
+        if (mine instanceof Long && theirs instanceof Long) {
+            return Long.compare((Long) mine, (Long) theirs);
+        } else if (mine instanceof Long) {
+            // A number, like the 1 of 1.0-1, is above any qualifier.
+            return 1;
+        } else if (theirs instanceof Long) {
+            return -1;
+        } else if (mine.equals(theirs)) {
+            return 0;
+        }
+
+        int myRank = rank((String) mine);
+        int theirRank = rank((String) theirs);
+
+        if (myRank == UNKNOWN || theirRank == UNKNOWN) {
+            return null;
+        }
+
+        return Integer.compare(myRank, theirRank);
+
+    }
+
+    /**
+     * Rank a qualifier.
+     *
+     * @param token the qualifier, empty for a release.
+     * @return the rank, or {@link #UNKNOWN} if the qualifier is not known.
+     */
+    private static int rank(String token) {
+
+        switch (token) {
+            case "a":
+            case "alpha":
+                return 0;
+            case "b":
+            case "beta":
+                return 1;
+            case "m":
+            case "milestone":
+                return 2;
+            case "rc":
+            case "cr":
+            case "pre":
+            case "preview":
+                return 3;
+            case "snapshot":
+            case "dev":
+                return 4;
+            case "":
+            case "ga":
+            case "final":
+            case "release":
+            case "stable":
+                return RELEASE_RANK;
+            case "sp":
+                return 6;
+            default:
+                return UNKNOWN;
+        }
+
+    }
+
+}
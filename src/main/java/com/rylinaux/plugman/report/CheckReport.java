@@ -0,0 +1,225 @@
+package com.rylinaux.plugman.report;
+
+/*
+ * #%L
+ * PlugMan
+ * %%
+ * Copyright (C) 2010 - 2015 PlugMan
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.rylinaux.plugman.pojo.UpdateResult;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A file that update check results are written to, one line per plugin.
+ * <p>
+ * Lines are encoded straight into a buffer that is written to the file channel whenever it fills up, so the report
+ * never holds more than one buffer of results in memory. Results may be written from several threads.
+ *
+ * @author rylinaux
+ */
+public abstract class CheckReport implements Closeable {
+
+    /**
+     * The size of the write buffer, in bytes.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The file the report is written to.
+     */
+    private final File file;
+
+    /**
+     * The channel of the file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * Encodes lines into the buffer.
+     */
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+
+    /**
+     * Holds encoded lines until they are written.
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    /**
+     * Represents the format of a report.
+     */
+    public enum Format {
+
+        TEXT("txt"), JSON("jsonl"), CSV("csv");
+
+        /**
+         * The extension of report files in this format.
+         */
+        private final String extension;
+
+        /**
+         * Construct the format.
+         *
+         * @param extension the extension of report files in this format.
+         */
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        /**
+         * Get the extension of report files in this format.
+         *
+         * @return the extension, without a dot.
+         */
+        public String getExtension() {
+            return extension;
+        }
+
+    }
+
+    /**
+     * Create the file, replacing any earlier report.
+     *
+     * @param file the file the report is written to.
+     * @throws IOException if the file could not be opened.
+     */
+    protected CheckReport(File file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Open a report in the given format.
+     *
+     * @param format the format.
+     * @param folder the folder the report is written to, as updates.&lt;extension&gt;.
+     * @return the report.
+     * @throws IOException if the file could not be opened.
+     */
+    public static CheckReport open(Format format, File folder) throws IOException {
+        File file = new File(folder, "updates." + format.getExtension());
+        switch (format) {
+            case JSON:
+                return new JsonLinesReport(file);
+            case CSV:
+                return new CsvReport(file);
+            default:
+                return new TextReport(file);
+        }
+    }
+
+    /**
+     * Get the file the report is written to.
+     *
+     * @return the file.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Add the result of a plugin to the report.
+     *
+     * @param pluginName the plugin name.
+     * @param jar        the jar of the plugin, may be null.
+     * @param result     the result of the check.
+     * @throws IOException if the report could not be written.
+     */
+    public void write(String pluginName, File jar, UpdateResult result) throws IOException {
+        writeLine(format(pluginName, jar, result));
+    }
+
+    /**
+     * Write what is still buffered and close the file.
+     *
+     * @throws IOException if the report could not be written.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Format the result of a plugin as a line.
+     *
+     * @param pluginName the plugin name.
+     * @param jar        the jar of the plugin, may be null.
+     * @param result     the result of the check.
+     * @return the line, without a line separator.
+     */
+    protected abstract String format(String pluginName, File jar, UpdateResult result);
+
+    /**
+     * Get the separator written after each line.
+     *
+     * @return the line separator.
+     */
+    protected String getLineSeparator() {
+        return "\n";
+    }
+
+    /**
+     * Encode a line into the buffer, writing the buffer out whenever it fills up.
+     *
+     * @param line the line, without a line separator.
+     * @throws IOException if the report could not be written.
+     */
+    protected final synchronized void writeLine(String line) throws IOException {
+
+        CharBuffer chars = CharBuffer.wrap(line + getLineSeparator());
+
+        while (encoder.encode(chars, buffer, true) == CoderResult.OVERFLOW) {
+            drain();
+        }
+
+        encoder.reset();
+
+    }
+
+    /**
+     * Write the buffer to the channel.
+     *
+     * @throws IOException if the report could not be written.
+     */
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.rylinaux.plugman.report;
+
+/*
+ * #%L
+ * PlugMan
+ * %%
+ * Copyright (C) 2010 - 2015 PlugMan
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.rylinaux.plugman.pojo.UpdateResult;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A check report in CSV as described by RFC 4180, with a header row and one row per plugin.
+ *
+ * @author rylinaux
+ */
+public class CsvReport extends CheckReport {
+
+    /**
+     * The header row.
+     */
+    private static final String HEADER = "plugin,jar,current_version,latest_version,resource_id,latency_ms,result,comparison";
+
+    /**
+     * Create the file, replacing any earlier report, and write the header row.
+     *
+     * @param file the file the report is written to.
+     * @throws IOException if the file could not be opened.
+     */
+    public CsvReport(File file) throws IOException {
+        super(file);
+        writeLine(HEADER);
+    }
+
+    @Override
+    protected String format(String pluginName, File jar, UpdateResult result) {
+        StringBuilder row = new StringBuilder();
+        append(row, pluginName).append(',');
+        append(row, jar == null ? null : jar.getPath()).append(',');
+        append(row, result.getCurrentVersion()).append(',');
+        append(row, result.getLatestVersion()).append(',');
+        append(row, result.getResourceId() < 0 ? null : String.valueOf(result.getResourceId())).append(',');
+        append(row, String.valueOf(result.getLatency())).append(',');
+        append(row, result.getType().name()).append(',');
+        append(row, result.getComparison() == null ? null : result.getComparison().name());
+        return row.toString();
+    }
+
+    @Override
+    protected String getLineSeparator() {
+        return "\r\n";
+    }
+
+    /**
+     * Append a field, quoting it if it contains a separator, quote or line break.
+     *
+     * @param row   the row.
+     * @param value the value, null for an empty field.
+     * @return the row.
+     */
+    private static StringBuilder append(StringBuilder row, String value) {
+
+        if (value == null) {
+            return row;
+        }
+
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return row.append(value);
+        }
+
+        return row.append('"').append(value.replace("\"", "\"\"")).append('"');
+
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.rylinaux.plugman.report;
+
+/*
+ * #%L
+ * PlugMan
+ * %%
+ * Copyright (C) 2010 - 2015 PlugMan
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.google.gson.stream.JsonWriter;
+
+import com.rylinaux.plugman.pojo.UpdateResult;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+
+/**
+ * A check report in JSON Lines, one JSON object per plugin.
+ *
+ * @author rylinaux
+ */
+public class JsonLinesReport extends CheckReport {
+
+    /**
+     * Create the file, replacing any earlier report.
+     *
+     * @param file the file the report is written to.
+     * @throws IOException if the file could not be opened.
+     */
+    public JsonLinesReport(File file) throws IOException {
+        super(file);
+    }
+
+    @Override
+    protected String format(String pluginName, File jar, UpdateResult result) {
+
+        StringWriter line = new StringWriter();
+
+        try (JsonWriter json = new JsonWriter(line)) {
+            json.setSerializeNulls(true);
+            json.beginObject();
+            json.name("plugin").value(pluginName);
+            json.name("jar").value(jar == null ? null : jar.getPath());
+            json.name("current_version").value(result.getCurrentVersion());
+            json.name("latest_version").value(result.getLatestVersion());
+            if (result.getResourceId() < 0) {
+                json.name("resource_id").nullValue();
+            } else {
+                json.name("resource_id").value(result.getResourceId());
+            }
+            json.name("latency_ms").value(result.getLatency());
+            json.name("result").value(result.getType().name());
+            json.name("comparison").value(result.getComparison() == null ? null : result.getComparison().name());
+            json.endObject();
+        } catch (IOException e) {
+            // A StringWriter does not throw.
+            throw new IllegalStateException(e);
+        }
+
+        return line.toString();
+
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.rylinaux.plugman.report;
+
+/*
+ * #%L
+ * PlugMan
+ * %%
+ * Copyright (C) 2010 - 2015 PlugMan
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.rylinaux.plugman.pojo.UpdateResult;
+import com.rylinaux.plugman.pojo.Version;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A check report meant to be read by people, one sentence-like line per plugin.
+ *
+ * @author rylinaux
+ */
+public class TextReport extends CheckReport {
+
+    /**
+     * Create the file, replacing any earlier report.
+     *
+     * @param file the file the report is written to.
+     * @throws IOException if the file could not be opened.
+     */
+    public TextReport(File file) throws IOException {
+        super(file);
+    }
+
+    @Override
+    protected String format(String pluginName, File jar, UpdateResult result) {
+        switch (result.getType()) {
+            case UP_TO_DATE:
+                if (result.getComparison() == Version.Comparison.AHEAD) {
+                    return "Up-to-date: " + pluginName + " (" + result.getCurrentVersion() + ", ahead of " + result.getLatestVersion() + ")";
+                }
+                return "Up-to-date: " + pluginName + " (" + result.getCurrentVersion() + ")";
+            case OUT_OF_DATE:
+                return "Out-of-date: " + pluginName + " (" + result.getCurrentVersion() + " -> " + result.getLatestVersion() + ")";
+            case RATE_LIMITED:
+                return "Rate limited: " + pluginName + " (" + result.getCurrentVersion() + ")";
+            default:
+                return "Unknown: " + pluginName + " (" + result.getCurrentVersion() + ")";
+        }
+    }
+
+    @Override
+    protected String getLineSeparator() {
+        return System.lineSeparator();
+    }
+
+}
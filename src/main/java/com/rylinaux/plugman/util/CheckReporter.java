@@ -0,0 +1,290 @@
+package com.rylinaux.plugman.util;
+
+/*
+ * #%L
+ * PlugMan
+ * %%
+ * Copyright (C) 2010 - 2015 PlugMan
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.rylinaux.plugman.PlugMan;
+import com.rylinaux.plugman.pojo.UpdateResult;
+import com.rylinaux.plugman.report.CheckReport;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.scheduler.BukkitRunnable;
+
+/**
+ * Reports the results of an update check while it is running.
+ * <p>
+ * Results arrive on worker threads and are sent to the sender once per tick, grouped by type with the most severe
+ * first, with a periodic progress report and estimate of the time left. When writing a report, only the progress is
+ * sent, and the results are written ordered by {@link UpdateResult#SEVERITY severity} once every plugin has been checked.
+ *
+ * @author rylinaux
+ */
+public class CheckReporter extends BukkitRunnable implements SpiGetClient.Callback {
+
+    /**
+     * How many ticks to wait between progress reports.
+     */
+    private static final int REPORT_INTERVAL = 100;
+
+    /**
+     * Orders results by the severity of their update result.
+     */
+    private static final Comparator<Map.Entry<String, UpdateResult>> BY_SEVERITY = new Comparator<Map.Entry<String, UpdateResult>>() {
+        @Override
+        public int compare(Map.Entry<String, UpdateResult> first, Map.Entry<String, UpdateResult> second) {
+            return UpdateResult.SEVERITY.compare(first.getValue(), second.getValue());
+        }
+    };
+
+    /**
+     * The sender to report to.
+     */
+    private final CommandSender sender;
+
+    /**
+     * The number of plugins being checked.
+     */
+    private final int total;
+
+    /**
+     * The report results are written to, null to send them to the sender.
+     */
+    private final CheckReport report;
+
+    /**
+     * Results received on worker threads and not yet reported.
+     */
+    private final Queue<Map.Entry<String, UpdateResult>> pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Results received on worker threads and not yet written to the report.
+     */
+    private final Queue<Map.Entry<String, UpdateResult>> unwritten = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The number of reported results of each type.
+     */
+    private final Map<UpdateResult.ResultType, Integer> counts = new EnumMap<>(UpdateResult.ResultType.class);
+
+    /**
+     * Whether writing the report failed.
+     */
+    private volatile boolean failed = false;
+
+    /**
+     * When the check started, in nanoseconds.
+     */
+    private long startedAt;
+
+    /**
+     * Whether every plugin has been checked.
+     */
+    private volatile boolean finished = false;
+
+    /**
+     * The number of reported results.
+     */
+    private int done = 0;
+
+    /**
+     * The number of ticks since the last progress report.
+     */
+    private int ticks = 0;
+
+    /**
+     * Construct the object.
+     *
+     * @param sender  the sender to report to.
+     * @param total   the number of plugins being checked.
+     * @param report the report results are written to, null to send them to the sender.
+     */
+    public CheckReporter(CommandSender sender, int total, CheckReport report) {
+        this.sender = sender;
+        this.total = total;
+        this.report = report;
+        for (UpdateResult.ResultType type : UpdateResult.ResultType.values()) {
+            counts.put(type, 0);
+        }
+    }
+
+    /**
+     * Start reporting on the next tick.
+     */
+    public void start() {
+        startedAt = System.nanoTime();
+        runTaskTimer(PlugMan.getInstance(), 1L, 1L);
+    }
+
+    /**
+     * Mark the check as complete, write the report and close it; the remaining results are reported on the next tick.
+     */
+    public void finish() {
+        if (report != null) {
+            List<Map.Entry<String, UpdateResult>> results = new ArrayList<>(unwritten);
+            Collections.sort(results, BY_SEVERITY);
+            for (Map.Entry<String, UpdateResult> entry : results) {
+                if (failed) {
+                    break;
+                }
+                try {
+                    report.write(entry.getKey(), PluginUtil.findPluginFile(entry.getKey()), entry.getValue());
+                } catch (IOException e) {
+                    fail(e);
+                }
+            }
+            try {
+                report.close();
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+        finished = true;
+    }
+
+    @Override
+    public void onResult(String pluginName, UpdateResult result) {
+
+        Map.Entry<String, UpdateResult> entry = new AbstractMap.SimpleImmutableEntry<>(pluginName, result);
+
+        if (report != null) {
+            unwritten.add(entry);
+        }
+
+        pending.add(entry);
+
+    }
+
+    @Override
+    public void run() {
+
+        // Read before draining, so no result that arrived before the check finished is missed.
+        boolean complete = finished;
+
+        StringBuilder upToDate = new StringBuilder(), outOfDate = new StringBuilder(), unknown = new StringBuilder(), rateLimited = new StringBuilder();
+
+        List<Map.Entry<String, UpdateResult>> batch = new ArrayList<>();
+
+        Map.Entry<String, UpdateResult> polled;
+
+        while ((polled = pending.poll()) != null) {
+            batch.add(polled);
+        }
+
+        Collections.sort(batch, BY_SEVERITY);
+
+        for (Map.Entry<String, UpdateResult> entry : batch) {
+
+            UpdateResult result = entry.getValue();
+
+            counts.put(result.getType(), counts.get(result.getType()) + 1);
+            done++;
+
+            if (report != null) {
+                continue;
+            }
+
+            switch (result.getType()) {
+                case UP_TO_DATE:
+                    upToDate.append(entry.getKey()).append("(").append(result.getCurrentVersion()).append(") ");
+                    break;
+                case OUT_OF_DATE:
+                    outOfDate.append(entry.getKey()).append("(").append(result.getCurrentVersion()).append(" -> ").append(result.getLatestVersion()).append(") ");
+                    break;
+                case RATE_LIMITED:
+                    rateLimited.append(entry.getKey()).append("(").append(result.getCurrentVersion()).append(") ");
+                    break;
+                default:
+                    unknown.append(entry.getKey()).append("(").append(result.getCurrentVersion()).append(") ");
+            }
+
+        }
+
+        send("check.out-of-date-player", outOfDate);
+        send("check.rate-limited-player", rateLimited);
+        send("check.unknown-player", unknown);
+        send("check.up-to-date-player", upToDate);
+
+        if (complete) {
+            cancel();
+            if (report != null && !failed) {
+                sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("check.file-done", report.getFile().getPath()));
+            }
+            sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("check.done", done,
+                    counts.get(UpdateResult.ResultType.UP_TO_DATE),
+                    counts.get(UpdateResult.ResultType.OUT_OF_DATE),
+                    counts.get(UpdateResult.ResultType.INVALID_PLUGIN) + counts.get(UpdateResult.ResultType.NOT_INSTALLED),
+                    counts.get(UpdateResult.ResultType.RATE_LIMITED),
+                    TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startedAt)));
+            return;
+        }
+
+        if (++ticks >= REPORT_INTERVAL) {
+            ticks = 0;
+            long elapsed = System.nanoTime() - startedAt;
+            String eta = done == 0 ? "?" : String.valueOf(TimeUnit.NANOSECONDS.toSeconds(elapsed / done * Math.max(0, total - done)));
+            sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("check.progress", done, total, eta));
+        }
+
+    }
+
+    /**
+     * Send a batch of results, if there are any.
+     *
+     * @param key     the message key.
+     * @param results the results.
+     */
+    private void send(String key, StringBuilder results) {
+        if (results.length() > 0) {
+            sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format(key, results.toString()));
+        }
+    }
+
+    /**
+     * Log a failure to write the report and stop writing to it.
+     *
+     * @param e the failure.
+     */
+    private synchronized void fail(IOException e) {
+        if (!failed) {
+            failed = true;
+            PlugMan.getInstance().getLogger().log(Level.WARNING, "Could not write " + report.getFile().getName(), e);
+        }
+    }
+
+}
@@ -0,0 +1,221 @@
+package com.rylinaux.plugman.util;
+
+/*
+ * #%L
+ * PlugMan
+ * %%
+ * Copyright (C) 2010 - 2015 PlugMan
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bukkit.command.Command;
+import org.bukkit.command.PluginIdentifiableCommand;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginDescriptionFile;
+
+/**
+ * Reverse index from commands and aliases to the plugins that own them.
+ * <p>
+ * Commands are taken from plugin descriptions and from the live command map, so commands registered at runtime are found as well.
+ *
+ * @author rylinaux
+ */
+public class CommandIndex {
+
+    /**
+     * Lower-cased commands and aliases mapped to the names of the plugins that own them.
+     */
+    private final Map<String, Set<String>> owners = new HashMap<>();
+
+    /**
+     * Lower-cased plugin names mapped to the lower-cased commands they own.
+     */
+    private final Map<String, Set<String>> commands = new HashMap<>();
+
+    /**
+     * Rebuild the index from scratch.
+     *
+     * @param plugins       the loaded plugins.
+     * @param knownCommands the live command map, may be null.
+     */
+    public synchronized void rebuild(Plugin[] plugins, Map<String, Command> knownCommands) {
+
+        owners.clear();
+        commands.clear();
+
+        for (Plugin plugin : plugins) {
+            addDescription(plugin.getDescription());
+        }
+
+        if (knownCommands != null) {
+            for (Map.Entry<String, Command> entry : knownCommands.entrySet()) {
+                addCommand(entry.getKey(), entry.getValue());
+            }
+        }
+
+    }
+
+    /**
+     * Index the commands and aliases declared in a plugin's description.
+     *
+     * @param description the description.
+     */
+    public synchronized void addDescription(PluginDescriptionFile description) {
+
+        Map<String, Map<String, Object>> declared = description.getCommands();
+
+        if (declared == null) {
+            return;
+        }
+
+        for (Map.Entry<String, Map<String, Object>> entry : declared.entrySet()) {
+
+            put(entry.getKey(), description.getName());
+
+            Object aliases = entry.getValue() == null ? null : entry.getValue().get("aliases");
+
+            if (aliases instanceof List) {
+                for (Object alias : (List<?>) aliases) {
+                    put(String.valueOf(alias), description.getName());
+                }
+            } else if (aliases != null) {
+                put(aliases.toString(), description.getName());
+            }
+
+        }
+
+    }
+
+    /**
+     * Index the commands of a plugin found in the live command map.
+     *
+     * @param plugin        the plugin.
+     * @param knownCommands the live command map, may be null.
+     */
+    public synchronized void addKnownCommands(Plugin plugin, Map<String, Command> knownCommands) {
+
+        if (knownCommands == null) {
+            return;
+        }
+
+        for (Map.Entry<String, Command> entry : knownCommands.entrySet()) {
+            if (entry.getValue() instanceof PluginIdentifiableCommand && ((PluginIdentifiableCommand) entry.getValue()).getPlugin() == plugin) {
+                put(entry.getKey(), plugin.getName());
+            }
+        }
+
+    }
+
+    /**
+     * Index a single entry of the live command map, if it belongs to a plugin.
+     *
+     * @param label   the label the command is registered under.
+     * @param command the command.
+     * @return true if the command belongs to a plugin.
+     */
+    public synchronized boolean addCommand(String label, Command command) {
+
+        if (!(command instanceof PluginIdentifiableCommand)) {
+            return false;
+        }
+
+        put(label, ((PluginIdentifiableCommand) command).getPlugin().getName());
+
+        return true;
+
+    }
+
+    /**
+     * Forget every command owned by a plugin.
+     *
+     * @param pluginName the name of the plugin.
+     */
+    public synchronized void remove(String pluginName) {
+
+        Set<String> owned = commands.remove(pluginName.toLowerCase());
+
+        if (owned == null) {
+            return;
+        }
+
+        for (String command : owned) {
+            Set<String> plugins = owners.get(command);
+            if (plugins == null) {
+                continue;
+            }
+            for (String plugin : new ArrayList<>(plugins)) {
+                if (plugin.equalsIgnoreCase(pluginName)) {
+                    plugins.remove(plugin);
+                }
+            }
+            if (plugins.isEmpty()) {
+                owners.remove(command);
+            }
+        }
+
+    }
+
+    /**
+     * Find the plugins that own a command or alias.
+     *
+     * @param command the command, without the leading slash.
+     * @return the names of the owning plugins, empty if none.
+     */
+    public synchronized List<String> find(String command) {
+        Set<String> plugins = owners.get(command.toLowerCase());
+        return plugins == null ? Collections.<String>emptyList() : new ArrayList<>(plugins);
+    }
+
+    /**
+     * Map a command to a plugin in both directions.
+     *
+     * @param command    the command or alias.
+     * @param pluginName the name of the plugin.
+     */
+    private void put(String command, String pluginName) {
+
+        String key = command.toLowerCase();
+
+        Set<String> plugins = owners.get(key);
+        if (plugins == null) {
+            plugins = new LinkedHashSet<>();
+            owners.put(key, plugins);
+        }
+        plugins.add(pluginName);
+
+        Set<String> owned = commands.get(pluginName.toLowerCase());
+        if (owned == null) {
+            owned = new LinkedHashSet<>();
+            commands.put(pluginName.toLowerCase(), owned);
+        }
+        owned.add(key);
+
+    }
+
+}
@@ -0,0 +1,230 @@
+package com.rylinaux.plugman.util;
+
+/*
+ * #%L
+ * PlugMan
+ * %%
+ * Copyright (C) 2010 - 2015 PlugMan
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.rylinaux.plugman.pojo.JarDescriptor;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginDescriptionFile;
+
+/**
+ * Utilities for ordering plugins by their dependencies.
+ *
+ * @author rylinaux
+ */
+public class DependencyUtil {
+
+    /**
+     * Sort loaded plugins so that every plugin comes after the plugins it depends on.
+     * <p>
+     * Reverse the result to get a safe unload order.
+     *
+     * @param plugins the plugins.
+     * @return the plugins in load order.
+     */
+    public static List<Plugin> sortPlugins(Collection<Plugin> plugins) {
+
+        Map<String, Plugin> nodes = new LinkedHashMap<>();
+        Map<String, Set<String>> after = new HashMap<>();
+
+        for (Plugin plugin : plugins) {
+            nodes.put(plugin.getName().toLowerCase(), plugin);
+        }
+
+        for (Plugin plugin : plugins) {
+            PluginDescriptionFile description = plugin.getDescription();
+            addConstraints(nodes, after, plugin.getName(), description.getDepend(), description.getSoftDepend(), description.getLoadBefore());
+        }
+
+        return sort(nodes, after);
+
+    }
+
+    /**
+     * Sort jar descriptors so that every plugin comes after the plugins it depends on.
+     *
+     * @param descriptors the descriptors.
+     * @return the descriptors in load order.
+     */
+    public static List<JarDescriptor> sortDescriptors(Collection<JarDescriptor> descriptors) {
+
+        Map<String, JarDescriptor> nodes = new LinkedHashMap<>();
+        Map<String, Set<String>> after = new HashMap<>();
+
+        for (JarDescriptor descriptor : descriptors) {
+            nodes.put(descriptor.getName().toLowerCase(), descriptor);
+        }
+
+        for (JarDescriptor descriptor : descriptors) {
+            addConstraints(nodes, after, descriptor.getName(), descriptor.getDepend(), descriptor.getSoftDepend(), descriptor.getLoadBefore());
+        }
+
+        return sort(nodes, after);
+
+    }
+
+    /**
+     * Record which plugins in the batch a plugin has to come after.
+     *
+     * @param nodes      the plugins in the batch, keyed by lower-cased name.
+     * @param after      the constraints, keyed by lower-cased name.
+     * @param name       the name of the plugin.
+     * @param depend     the plugins it depends on.
+     * @param softDepend the plugins it soft-depends on.
+     * @param loadBefore the plugins it must load before.
+     */
+    private static void addConstraints(Map<String, ?> nodes, Map<String, Set<String>> after, String name, List<String> depend, List<String> softDepend, List<String> loadBefore) {
+
+        String key = name.toLowerCase();
+
+        List<String> dependencies = new ArrayList<>();
+
+        if (depend != null) {
+            dependencies.addAll(depend);
+        }
+
+        if (softDepend != null) {
+            dependencies.addAll(softDepend);
+        }
+
+        for (String dependency : dependencies) {
+            if (nodes.containsKey(dependency.toLowerCase())) {
+                getOrCreate(after, key).add(dependency.toLowerCase());
+            }
+        }
+
+        if (loadBefore != null) {
+            for (String dependent : loadBefore) {
+                if (nodes.containsKey(dependent.toLowerCase())) {
+                    getOrCreate(after, dependent.toLowerCase()).add(key);
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Topologically sort the batch, keeping the original order where there is no constraint.
+     * <p>
+     * Plugins on a dependency cycle are appended at the end in their original order.
+     *
+     * @param nodes the plugins in the batch, keyed by lower-cased name.
+     * @param after the constraints, keyed by lower-cased name.
+     * @param <T>   the type of the plugins.
+     * @return the plugins in load order.
+     */
+    private static <T> List<T> sort(Map<String, T> nodes, Map<String, Set<String>> after) {
+
+        Map<String, Integer> pending = new HashMap<>();
+        Map<String, List<String>> dependents = new HashMap<>();
+
+        Deque<String> ready = new ArrayDeque<>();
+
+        for (String key : nodes.keySet()) {
+
+            Set<String> dependencies = after.get(key);
+
+            dependencies = dependencies == null ? new LinkedHashSet<String>() : dependencies;
+            dependencies.remove(key);
+
+            pending.put(key, dependencies.size());
+
+            for (String dependency : dependencies) {
+                if (!dependents.containsKey(dependency)) {
+                    dependents.put(dependency, new ArrayList<String>());
+                }
+                dependents.get(dependency).add(key);
+            }
+
+            if (dependencies.isEmpty()) {
+                ready.add(key);
+            }
+
+        }
+
+        List<T> sorted = new ArrayList<>(nodes.size());
+        Set<String> done = new LinkedHashSet<>();
+
+        while (!ready.isEmpty()) {
+
+            String key = ready.poll();
+
+            sorted.add(nodes.get(key));
+            done.add(key);
+
+            List<String> waiting = dependents.get(key);
+
+            if (waiting != null) {
+                for (String dependent : waiting) {
+                    int remaining = pending.get(dependent) - 1;
+                    pending.put(dependent, remaining);
+                    if (remaining == 0) {
+                        ready.add(dependent);
+                    }
+                }
+            }
+
+        }
+
+        for (Map.Entry<String, T> entry : nodes.entrySet()) {
+            if (!done.contains(entry.getKey())) {
+                sorted.add(entry.getValue());
+            }
+        }
+
+        return sorted;
+
+    }
+
+    /**
+     * Get the set for a key, creating it if needed.
+     *
+     * @param map the map.
+     * @param key the key.
+     * @return the set.
+     */
+    private static Set<String> getOrCreate(Map<String, Set<String>> map, String key) {
+        Set<String> set = map.get(key);
+        if (set == null) {
+            set = new LinkedHashSet<>();
+            map.put(key, set);
+        }
+        return set;
+    }
+
+}
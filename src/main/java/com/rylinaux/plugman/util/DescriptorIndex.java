@@ -0,0 +1,461 @@
+package com.rylinaux.plugman.util;
+
+/*
+ * #%L
+ * PlugMan
+ * %%
+ * Copyright (C) 2010 - 2015 PlugMan
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import com.rylinaux.plugman.pojo.JarDescriptor;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.bukkit.plugin.InvalidDescriptionException;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.PluginLoader;
+
+/**
+ * Persistent index of the plugin descriptors in the plugins folder.
+ * <p>
+ * Jars are only opened when they are new or their size or modification time changed.
+ *
+ * @author rylinaux
+ */
+public class DescriptorIndex {
+
+    /**
+     * The version of the on-disk format.
+     */
+    private static final int FORMAT = 2;
+
+    /**
+     * The JSON serializer.
+     */
+    private static final Gson GSON = new Gson();
+
+    /**
+     * Creates the threads that read changed jars in parallel.
+     */
+    private static final ThreadFactory THREAD_FACTORY = new ThreadFactoryBuilder().setNameFormat("PlugMan Descriptor Reader #%d").setDaemon(true).build();
+
+    /**
+     * The loader used to read descriptions.
+     */
+    private final PluginLoader loader;
+
+    /**
+     * The plugins folder.
+     */
+    private final File pluginDir;
+
+    /**
+     * The file the index is persisted to.
+     */
+    private final File indexFile;
+
+    /**
+     * Descriptors keyed by jar file name.
+     */
+    private final Map<String, JarDescriptor> byFile = new ConcurrentHashMap<>();
+
+    /**
+     * Descriptors keyed by lower-cased plugin name.
+     */
+    private final Map<String, JarDescriptor> byName = new ConcurrentHashMap<>();
+
+    /**
+     * Whether the index changed since it was last saved.
+     */
+    private boolean dirty = false;
+
+    /**
+     * Incremented whenever the indexed descriptors change.
+     */
+    private volatile int modCount = 0;
+
+    /**
+     * When the index was last refreshed, in milliseconds since the epoch.
+     */
+    private volatile long refreshedAt = 0;
+
+    /**
+     * Construct the object.
+     *
+     * @param loader    the loader used to read descriptions.
+     * @param pluginDir the plugins folder.
+     * @param indexFile the file the index is persisted to.
+     */
+    public DescriptorIndex(PluginLoader loader, File pluginDir, File indexFile) {
+        this.loader = loader;
+        this.pluginDir = pluginDir;
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * Read the persisted index from disk.
+     */
+    public synchronized void read() {
+
+        if (!indexFile.isFile()) {
+            return;
+        }
+
+        try (Reader reader = new InputStreamReader(new FileInputStream(indexFile), StandardCharsets.UTF_8)) {
+
+            Stored stored = GSON.fromJson(reader, Stored.class);
+
+            if (stored == null || stored.format != FORMAT || stored.jars == null) {
+                return;
+            }
+
+            for (JarDescriptor descriptor : stored.jars) {
+                put(descriptor);
+            }
+
+        } catch (IOException | JsonParseException e) {
+            Logger.getLogger(DescriptorIndex.class.getName()).log(Level.WARNING, "Could not read " + indexFile.getName(), e);
+        }
+
+    }
+
+    /**
+     * Persist the index to disk if it changed.
+     * <p>
+     * The new index is moved over the old one only once it is fully written, so an interrupted save keeps the previous index.
+     */
+    public synchronized void save() {
+
+        if (!dirty) {
+            return;
+        }
+
+        indexFile.getParentFile().mkdirs();
+
+        Stored stored = new Stored();
+        stored.format = FORMAT;
+        stored.jars = new ArrayList<>(byFile.values());
+
+        File tempFile = new File(indexFile.getParentFile(), indexFile.getName() + ".tmp");
+
+        try {
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(tempFile), StandardCharsets.UTF_8)) {
+                GSON.toJson(stored, writer);
+            }
+            try {
+                Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            dirty = false;
+        } catch (IOException e) {
+            Logger.getLogger(DescriptorIndex.class.getName()).log(Level.WARNING, "Could not save " + indexFile.getName(), e);
+        }
+
+    }
+
+    /**
+     * Bring the index up to date with the plugins folder.
+     * <p>
+     * Only jars that are new or changed are opened, in parallel; removed jars are dropped.
+     *
+     * @return true if anything changed.
+     */
+    public synchronized boolean refresh() {
+
+        refreshedAt = System.currentTimeMillis();
+
+        File[] files = pluginDir.listFiles();
+
+        if (files == null) {
+            return false;
+        }
+
+        Set<String> seen = new HashSet<>();
+
+        List<File> changed = new ArrayList<>();
+
+        for (File file : files) {
+
+            if (!file.getName().endsWith(".jar") || !file.isFile()) {
+                continue;
+            }
+
+            seen.add(file.getName());
+
+            JarDescriptor cached = byFile.get(file.getName());
+
+            if (cached == null || !cached.matches(file)) {
+                changed.add(file);
+            }
+
+        }
+
+        boolean removed = false;
+
+        for (JarDescriptor descriptor : byFile.values()) {
+            if (!seen.contains(descriptor.getFileName())) {
+                remove(descriptor);
+                removed = true;
+            }
+        }
+
+        for (JarDescriptor descriptor : describeAll(changed)) {
+            JarDescriptor cached = byFile.get(descriptor.getFileName());
+            if (cached != null) {
+                remove(cached);
+            }
+            put(descriptor);
+        }
+
+        if (removed || !changed.isEmpty()) {
+            dirty = true;
+            return true;
+        }
+
+        return false;
+
+    }
+
+    /**
+     * Get the cached descriptor of a plugin without touching the disk.
+     *
+     * @param name the name of the plugin.
+     * @return the descriptor, or null if none is indexed.
+     */
+    public JarDescriptor get(String name) {
+        return byName.get(name.toLowerCase());
+    }
+
+    /**
+     * Get the cached descriptor of a jar without touching the disk.
+     *
+     * @param fileName the name of the jar file.
+     * @return the descriptor, or null if the jar is not indexed.
+     */
+    public JarDescriptor getByFile(String fileName) {
+        return byFile.get(fileName);
+    }
+
+    /**
+     * Find the jar file of a plugin, refreshing the index if the cached entry is missing or stale.
+     *
+     * @param name the name of the plugin.
+     * @return the jar file, or null if no jar provides the plugin.
+     */
+    public File find(String name) {
+
+        JarDescriptor descriptor = get(name);
+
+        if (descriptor == null || !descriptor.matches(getFile(descriptor))) {
+            refresh();
+            descriptor = get(name);
+        }
+
+        return descriptor == null ? null : getFile(descriptor);
+
+    }
+
+    /**
+     * Get the names of all indexed plugins.
+     *
+     * @return the plugin names.
+     */
+    public List<String> getNames() {
+        List<String> names = new ArrayList<>(byName.size());
+        for (JarDescriptor descriptor : byName.values()) {
+            names.add(descriptor.getName());
+        }
+        return names;
+    }
+
+    /**
+     * Get all indexed descriptors.
+     *
+     * @return the descriptors.
+     */
+    public Collection<JarDescriptor> getDescriptors() {
+        return byFile.values();
+    }
+
+    /**
+     * Get a counter that changes whenever the indexed descriptors change, so derived data can tell when it is stale.
+     *
+     * @return the modification count.
+     */
+    public int getModCount() {
+        return modCount;
+    }
+
+    /**
+     * Get when the index was last refreshed.
+     *
+     * @return the time of the last refresh in milliseconds since the epoch, or 0 if it never was.
+     */
+    public long getRefreshedAt() {
+        return refreshedAt;
+    }
+
+    /**
+     * Get the jar file for a descriptor.
+     *
+     * @param descriptor the descriptor.
+     * @return the jar file.
+     */
+    public File getFile(JarDescriptor descriptor) {
+        return new File(pluginDir, descriptor.getFileName());
+    }
+
+    /**
+     * Read the descriptions of several jars, in parallel when there is more than one.
+     *
+     * @param files the jar files.
+     * @return the descriptors that were read.
+     */
+    private List<JarDescriptor> describeAll(List<File> files) {
+
+        List<JarDescriptor> descriptors = new ArrayList<>(files.size());
+
+        if (files.size() < 2) {
+            for (File file : files) {
+                descriptors.add(describe(file));
+            }
+            return descriptors;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(files.size(), Runtime.getRuntime().availableProcessors()), THREAD_FACTORY);
+
+        try {
+
+            List<Future<JarDescriptor>> futures = new ArrayList<>(files.size());
+
+            for (final File file : files) {
+                futures.add(executor.submit(new Callable<JarDescriptor>() {
+                    @Override
+                    public JarDescriptor call() {
+                        return describe(file);
+                    }
+                }));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    descriptors.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    Logger.getLogger(DescriptorIndex.class.getName()).log(Level.WARNING, "Could not read " + files.get(i).getName(), e.getCause());
+                    descriptors.add(new JarDescriptor(files.get(i)));
+                }
+            }
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return descriptors;
+
+    }
+
+    /**
+     * Read the description of a jar.
+     *
+     * @param file the jar file.
+     * @return the descriptor, marked invalid if the description could not be read.
+     */
+    private JarDescriptor describe(File file) {
+        try {
+            PluginDescriptionFile description = loader.getPluginDescription(file);
+            return new JarDescriptor(file, description.getName(), description.getVersion(), description.getDepend(), description.getSoftDepend(), description.getLoadBefore());
+        } catch (InvalidDescriptionException e) {
+            return new JarDescriptor(file);
+        }
+    }
+
+    /**
+     * Add a descriptor to the lookup maps.
+     *
+     * @param descriptor the descriptor.
+     */
+    private void put(JarDescriptor descriptor) {
+        byFile.put(descriptor.getFileName(), descriptor);
+        if (descriptor.isValid()) {
+            byName.put(descriptor.getName().toLowerCase(), descriptor);
+        }
+        modCount++;
+    }
+
+    /**
+     * Remove a descriptor from the lookup maps.
+     *
+     * @param descriptor the descriptor.
+     */
+    private void remove(JarDescriptor descriptor) {
+        byFile.remove(descriptor.getFileName());
+        if (descriptor.isValid() && byName.get(descriptor.getName().toLowerCase()) == descriptor) {
+            byName.remove(descriptor.getName().toLowerCase());
+        }
+        modCount++;
+    }
+
+    /**
+     * The persisted form of the index.
+     */
+    private static class Stored {
+
+        private int format;
+
+        private List<JarDescriptor> jars;
+
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.rylinaux.plugman.util;
+
+/*
+ * #%L
+ * PlugMan
+ * %%
+ * Copyright (C) 2010 - 2015 PlugMan
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.bukkit.plugin.InvalidDescriptionException;
+import org.bukkit.plugin.InvalidPluginException;
+import org.bukkit.plugin.PluginDescriptionFile;
+
+/**
+ * Utility class for checking that a replacement jar can be loaded before the running plugin is unloaded.
+ * <p>
+ * Only reads the jar, so it is safe to call off the main thread. No classes are loaded, so no plugin code runs.
+ *
+ * @author rylinaux
+ */
+public class JarVerifier {
+
+    /**
+     * The magic number every class file starts with.
+     */
+    private static final int CLASS_MAGIC = 0xCAFEBABE;
+
+    /**
+     * Check that a jar holds a loadable version of a plugin.
+     *
+     * @param file         the jar
+     * @param expectedName the name of the plugin the jar should provide
+     * @param available    the lower-cased names of the plugins that will be loaded alongside it
+     * @return the description in the jar
+     * @throws InvalidDescriptionException if plugin.yml is missing or invalid
+     * @throws InvalidPluginException      if the jar cannot be read, provides another plugin, has no main class or misses a dependency
+     */
+    public static PluginDescriptionFile verify(File file, String expectedName, Collection<String> available) throws InvalidDescriptionException, InvalidPluginException {
+
+        try (JarFile jar = new JarFile(file)) {
+
+            JarEntry descriptionEntry = jar.getJarEntry("plugin.yml");
+
+            if (descriptionEntry == null) {
+                throw new InvalidDescriptionException("Jar does not contain plugin.yml");
+            }
+
+            PluginDescriptionFile description;
+
+            try (InputStream in = jar.getInputStream(descriptionEntry)) {
+                description = new PluginDescriptionFile(in);
+            }
+
+            if (!description.getName().equalsIgnoreCase(expectedName)) {
+                throw new InvalidPluginException("Jar provides " + description.getName() + ", not " + expectedName);
+            }
+
+            JarEntry mainEntry = jar.getJarEntry(description.getMain().replace('.', '/') + ".class");
+
+            if (mainEntry == null) {
+                throw new InvalidPluginException("Main class " + description.getMain() + " is not in the jar");
+            }
+
+            try (DataInputStream in = new DataInputStream(jar.getInputStream(mainEntry))) {
+                if (in.readInt() != CLASS_MAGIC) {
+                    throw new InvalidPluginException("Main class " + description.getMain() + " is not a class file");
+                }
+            }
+
+            for (String depend : description.getDepend()) {
+                if (!available.contains(depend.toLowerCase())) {
+                    throw new InvalidPluginException("Missing dependency " + depend);
+                }
+            }
+
+            return description;
+
+        } catch (IOException e) {
+            throw new InvalidPluginException(e);
+        }
+
+    }
+
+}
@@ -0,0 +1,318 @@
+package com.rylinaux.plugman.util;
+
+/*
+ * #%L
+ * PlugMan
+ * %%
+ * Copyright (C) 2010 - 2015 PlugMan
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.google.common.base.Joiner;
+
+import com.rylinaux.plugman.PlugMan;
+import com.rylinaux.plugman.pojo.JarDescriptor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Watches the plugins folder and reloads plugins whose jars were replaced.
+ * <p>
+ * Writes are debounced until the folder has been quiet for a while. A jar counts as replaced when its size or
+ * modification time changed since the watcher last saw it and its description names a loaded plugin, so a rebuild
+ * that keeps the same version is reloaded too. Replaced plugins are queued and
+ * reloaded together in dependency order, and anything queued during a reload is picked up by the next batch.
+ *
+ * @author rylinaux
+ */
+public class JarWatcher implements Runnable {
+
+    /**
+     * How long to wait for filesystem events per poll, in milliseconds.
+     */
+    private static final long POLL_INTERVAL = 250;
+
+    /**
+     * The plugins folder.
+     */
+    private final File pluginDir;
+
+    /**
+     * How long the folder has to be quiet before changed jars are read, in milliseconds.
+     */
+    private final long debounce;
+
+    /**
+     * The watch service, null until started.
+     */
+    private WatchService watchService = null;
+
+    /**
+     * The thread polling the watch service.
+     */
+    private Thread thread = null;
+
+    /**
+     * The names of the plugins waiting to be reloaded.
+     */
+    private final Set<String> queued = new LinkedHashSet<>();
+
+    /**
+     * The descriptors of the jars as last seen by the watcher, by file name. Only accessed on the watcher thread.
+     */
+    private final Map<String, JarDescriptor> seen = new HashMap<>();
+
+    /**
+     * Whether a batch is being reloaded. Only accessed on the main thread.
+     */
+    private boolean reloading = false;
+
+    /**
+     * Construct the object.
+     *
+     * @param pluginDir the plugins folder.
+     * @param debounce  how long the folder has to be quiet before changed jars are read, in milliseconds.
+     */
+    public JarWatcher(File pluginDir, long debounce) {
+        this.pluginDir = pluginDir;
+        this.debounce = debounce;
+    }
+
+    /**
+     * Start watching the plugins folder.
+     *
+     * @throws IOException if the folder cannot be watched.
+     */
+    public void start() throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+        pluginDir.toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        thread = new Thread(this, "PlugMan Jar Watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stop watching the plugins folder.
+     */
+    public void close() {
+        if (thread != null) {
+            thread.interrupt();
+        }
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                Logger.getLogger(JarWatcher.class.getName()).log(Level.WARNING, "Could not close the watch service", e);
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+
+        Set<String> changed = new HashSet<>();
+
+        long lastEvent = 0;
+
+        // The jars in the folder now are the ones the loaded plugins came from.
+        DescriptorIndex index = PlugMan.getInstance().getDescriptorIndex();
+
+        if (index.refresh()) {
+            index.save();
+        }
+
+        for (JarDescriptor descriptor : index.getDescriptors()) {
+            seen.put(descriptor.getFileName(), descriptor);
+        }
+
+        try {
+
+            while (!Thread.currentThread().isInterrupted()) {
+
+                WatchKey key = watchService.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+
+                if (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.context() instanceof Path) {
+                            String fileName = event.context().toString();
+                            if (fileName.endsWith(".jar")) {
+                                changed.add(fileName);
+                                lastEvent = System.currentTimeMillis();
+                            }
+                        }
+                    }
+                    key.reset();
+                }
+
+                if (!changed.isEmpty() && System.currentTimeMillis() - lastEvent >= debounce) {
+                    enqueue(findReplaced(changed));
+                    changed.clear();
+                }
+
+            }
+
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stopped.
+        }
+
+    }
+
+    /**
+     * Read the changed jars and find the loaded plugins they replace.
+     *
+     * @param fileNames the names of the changed jars.
+     * @return the names of the plugins to reload.
+     */
+    private List<String> findReplaced(Set<String> fileNames) {
+
+        DescriptorIndex index = PlugMan.getInstance().getDescriptorIndex();
+
+        if (index.refresh()) {
+            index.save();
+        }
+
+        List<String> replaced = new ArrayList<>();
+
+        for (String fileName : fileNames) {
+
+            JarDescriptor descriptor = index.getByFile(fileName);
+
+            if (descriptor == null) {
+                seen.remove(fileName);
+                continue;
+            }
+
+            JarDescriptor previous = seen.put(fileName, descriptor);
+
+            if (previous != null && previous.matches(descriptor)) {
+                continue;
+            }
+
+            if (!descriptor.isValid() || PluginUtil.isIgnored(descriptor.getName())) {
+                continue;
+            }
+
+            // The name only maps the jar to the loaded plugin it provides.
+            Plugin plugin = PlugMan.getInstance().getPluginNameIndex().get(descriptor.getName());
+
+            if (plugin != null) {
+                replaced.add(plugin.getName());
+            }
+
+        }
+
+        return replaced;
+
+    }
+
+    /**
+     * Queue plugins to be reloaded and start a batch if none is running.
+     *
+     * @param names the names of the plugins.
+     */
+    private void enqueue(List<String> names) {
+
+        if (names.isEmpty()) {
+            return;
+        }
+
+        synchronized (queued) {
+            queued.addAll(names);
+        }
+
+        ThreadUtil.sync(new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        });
+
+    }
+
+    /**
+     * Reload everything queued as one batch. Must be called on the main thread.
+     */
+    private void drain() {
+
+        if (reloading) {
+            return;
+        }
+
+        List<Plugin> plugins = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+
+        synchronized (queued) {
+            for (String name : queued) {
+                Plugin plugin = PluginUtil.getPluginByName(name);
+                if (plugin != null) {
+                    plugins.add(plugin);
+                    names.add(plugin.getName());
+                }
+            }
+            queued.clear();
+        }
+
+        if (plugins.isEmpty()) {
+            return;
+        }
+
+        reloading = true;
+
+        PlugMan.getInstance().getLogger().info("Hot reloading " + plugins.size() + " replaced plugin(s): " + Joiner.on(", ").join(names));
+
+        try {
+            PluginUtil.reload(plugins, Bukkit.getConsoleSender(), new Runnable() {
+                @Override
+                public void run() {
+                    reloading = false;
+                    drain();
+                }
+            });
+        } catch (RuntimeException e) {
+            // The reload never started, so its callback will not clear the flag.
+            reloading = false;
+            throw e;
+        }
+
+    }
+
+}
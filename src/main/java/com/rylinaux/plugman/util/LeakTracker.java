@@ -0,0 +1,265 @@
+package com.rylinaux.plugman.util;
+
+/*
+ * #%L
+ * PlugMan
+ * %%
+ * Copyright (C) 2010 - 2015 PlugMan
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Tracks the classloaders of unloaded plugins and reports the ones that stay reachable.
+ * <p>
+ * Only weak references are held, so tracking never keeps a classloader alive, and no collection is ever forced;
+ * a classloader is suspected of leaking once it survives a number of the JVM's own collections that unload classes.
+ * <p>
+ * Those are counted from the collectors that report them: full collections of the serial, parallel and CMS collectors,
+ * concurrent and full cycles of G1 on Java 20 and later, and the cycles, not the pauses, of ZGC and Shenandoah. Young
+ * collections are never counted, as they run often and never unload classes. G1 before Java 20 only reports its rare
+ * full collections, so there every check that saw any collection run counts as one cycle instead.
+ *
+ * @author rylinaux
+ */
+public class LeakTracker {
+
+    /**
+     * The collectors whose collections unload classes.
+     */
+    private static final Set<String> UNLOADING_COLLECTORS = new HashSet<>(Arrays.asList(
+            "MarkSweepCompact", "PS MarkSweep", "ConcurrentMarkSweep",
+            "G1 Old Generation", "G1 Concurrent GC",
+            "ZGC Cycles", "ZGC Major Cycles", "Shenandoah Cycles"));
+
+    /**
+     * The collectors that are counted, or empty if checks that saw a collection are counted instead.
+     */
+    private final List<GarbageCollectorMXBean> counted = new ArrayList<>();
+
+    /**
+     * Every collector, used to notice that a collection ran when checks are counted.
+     */
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+
+    /**
+     * The number of checks that saw a collection run, when checks are counted.
+     */
+    private volatile long checks = 0;
+
+    /**
+     * The total collections of every collector at the last check, when checks are counted.
+     */
+    private long lastTotal = -1;
+
+    /**
+     * Enqueues the references of classloaders that have been collected.
+     */
+    private final ReferenceQueue<ClassLoader> queue = new ReferenceQueue<>();
+
+    /**
+     * The classloaders still being tracked.
+     */
+    private final Map<Reference<? extends ClassLoader>, TrackedLoader> tracked = new ConcurrentHashMap<>();
+
+    /**
+     * How many collections a classloader must survive before it is reported.
+     */
+    private final int cycles;
+
+    /**
+     * Construct the object.
+     *
+     * @param cycles how many collections a classloader must survive before it is reported.
+     */
+    public LeakTracker(int cycles) {
+
+        this.cycles = Math.max(1, cycles);
+
+        boolean g1 = false;
+        boolean g1Cycles = false;
+
+        for (GarbageCollectorMXBean bean : collectors) {
+            if (bean.getName().startsWith("G1 ")) {
+                g1 = true;
+                g1Cycles |= bean.getName().equals("G1 Concurrent GC");
+            }
+            if (UNLOADING_COLLECTORS.contains(bean.getName())) {
+                counted.add(bean);
+            }
+        }
+
+        // Without its concurrent cycles, G1 would only count full collections, which a healthy server may never run.
+        if (g1 && !g1Cycles) {
+            counted.clear();
+        }
+
+    }
+
+    /**
+     * Start tracking the classloader of an unloaded plugin.
+     *
+     * @param pluginName  the name of the plugin.
+     * @param classLoader the plugin's classloader.
+     */
+    public void track(String pluginName, ClassLoader classLoader) {
+        tracked.put(new WeakReference<>(classLoader, queue), new TrackedLoader(pluginName, getCollectionCount()));
+    }
+
+    /**
+     * Forget the classloaders that have been collected and log the ones that newly became suspects.
+     *
+     * @return the plugins whose classloaders newly became suspects.
+     */
+    public synchronized List<String> check() {
+
+        if (counted.isEmpty()) {
+            long total = 0;
+            for (GarbageCollectorMXBean bean : collectors) {
+                total += Math.max(0, bean.getCollectionCount());
+            }
+            if (lastTotal >= 0 && total != lastTotal) {
+                checks++;
+            }
+            lastTotal = total;
+        }
+
+        Reference<? extends ClassLoader> collected;
+
+        while ((collected = queue.poll()) != null) {
+            tracked.remove(collected);
+        }
+
+        long collections = getCollectionCount();
+
+        List<String> suspects = new ArrayList<>();
+
+        for (TrackedLoader loader : tracked.values()) {
+            if (!loader.reported && collections - loader.collections >= cycles) {
+                loader.reported = true;
+                suspects.add(loader.pluginName);
+                Logger.getLogger(LeakTracker.class.getName()).log(Level.WARNING, "The classloader of " + loader.pluginName + " is still reachable " + (collections - loader.collections) + " garbage collection cycles after it was unloaded.");
+            }
+        }
+
+        return suspects;
+
+    }
+
+    /**
+     * Get the classloaders that survived enough collections to be suspected of leaking.
+     * <p>
+     * Each tracked classloader is its own entry, so a plugin unloaded several times shows up once per leaked classloader.
+     *
+     * @return the suspected classloaders, ordered by plugin name, mapped to the number of collections they survived.
+     */
+    public Map<TrackedLoader, Long> getSuspects() {
+
+        long collections = getCollectionCount();
+
+        List<TrackedLoader> reported = new ArrayList<>();
+
+        for (TrackedLoader loader : tracked.values()) {
+            if (loader.reported) {
+                reported.add(loader);
+            }
+        }
+
+        Collections.sort(reported, new Comparator<TrackedLoader>() {
+            @Override
+            public int compare(TrackedLoader a, TrackedLoader b) {
+                return a.pluginName.compareToIgnoreCase(b.pluginName);
+            }
+        });
+
+        Map<TrackedLoader, Long> suspects = new LinkedHashMap<>();
+
+        for (TrackedLoader loader : reported) {
+            suspects.put(loader, collections - loader.collections);
+        }
+
+        return suspects;
+
+    }
+
+    /**
+     * Get the number of collections that unload classes the JVM has run so far, or of checks that saw one if they are not reported.
+     *
+     * @return the collection count.
+     */
+    private long getCollectionCount() {
+        if (counted.isEmpty()) {
+            return checks;
+        }
+        long count = 0;
+        for (GarbageCollectorMXBean bean : counted) {
+            long collections = Math.max(0, bean.getCollectionCount());
+            // G1 reports both the remark and the cleanup pause of each concurrent cycle.
+            count += bean.getName().equals("G1 Concurrent GC") ? collections / 2 : collections;
+        }
+        return count;
+    }
+
+    /**
+     * A classloader being tracked.
+     */
+    public static class TrackedLoader {
+
+        private final String pluginName;
+
+        private final long collections;
+
+        private volatile boolean reported = false;
+
+        private TrackedLoader(String pluginName, long collections) {
+            this.pluginName = pluginName;
+            this.collections = collections;
+        }
+
+        /**
+         * Get the name of the plugin the classloader belonged to.
+         *
+         * @return the name of the plugin.
+         */
+        public String getPluginName() {
+            return pluginName;
+        }
+
+    }
+
+}
@@ -0,0 +1,162 @@
+package com.rylinaux.plugman.util;
+
+/*
+ * #%L
+ * PlugMan
+ * %%
+ * Copyright (C) 2010 - 2015 PlugMan
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An immutable, sorted index of names for tab completion.
+ * <p>
+ * Prefix matches are found by binary search; if there are none, names containing the input are offered,
+ * and failing that, names containing its characters in order.
+ *
+ * @author rylinaux
+ */
+public class NameCompletionIndex {
+
+    /**
+     * The names, sorted case-insensitively.
+     */
+    private final String[] names;
+
+    /**
+     * The lower-cased names, in the same order.
+     */
+    private final String[] keys;
+
+    /**
+     * Build the index.
+     *
+     * @param names the names to complete.
+     */
+    public NameCompletionIndex(Collection<String> names) {
+
+        String[] sorted = names.toArray(new String[names.size()]);
+
+        Arrays.sort(sorted, new Comparator<String>() {
+            @Override
+            public int compare(String a, String b) {
+                int result = a.toLowerCase().compareTo(b.toLowerCase());
+                return result != 0 ? result : a.compareTo(b);
+            }
+        });
+
+        this.names = sorted;
+        this.keys = new String[sorted.length];
+
+        for (int i = 0; i < sorted.length; i++) {
+            keys[i] = sorted[i].toLowerCase();
+        }
+
+    }
+
+    /**
+     * Complete a partial name.
+     *
+     * @param partial the partial name.
+     * @return the matching names, sorted.
+     */
+    public List<String> complete(String partial) {
+
+        String key = partial.toLowerCase();
+
+        if (key.isEmpty()) {
+            return new ArrayList<>(Arrays.asList(names));
+        }
+
+        List<String> matches = new ArrayList<>();
+
+        int start = Arrays.binarySearch(keys, key);
+
+        if (start < 0) {
+            start = -start - 1;
+        }
+
+        // Step back over names that are equal when lower-cased.
+        while (start > 0 && keys[start - 1].startsWith(key)) {
+            start--;
+        }
+
+        for (int i = start; i < keys.length && keys[i].startsWith(key); i++) {
+            matches.add(names[i]);
+        }
+
+        if (!matches.isEmpty()) {
+            return matches;
+        }
+
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i].contains(key)) {
+                matches.add(names[i]);
+            }
+        }
+
+        if (!matches.isEmpty()) {
+            return matches;
+        }
+
+        for (int i = 0; i < keys.length; i++) {
+            if (isSubsequence(key, keys[i])) {
+                matches.add(names[i]);
+            }
+        }
+
+        return matches;
+
+    }
+
+    /**
+     * Get the number of names in the index.
+     *
+     * @return the number of names.
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Check whether the characters of one string appear in another, in order.
+     *
+     * @param key  the characters to look for.
+     * @param name the string to look in.
+     * @return true if every character was found in order.
+     */
+    private static boolean isSubsequence(String key, String name) {
+        int found = 0;
+        for (int i = 0; i < name.length() && found < key.length(); i++) {
+            if (name.charAt(i) == key.charAt(found)) {
+                found++;
+            }
+        }
+        return found == key.length();
+    }
+
+}
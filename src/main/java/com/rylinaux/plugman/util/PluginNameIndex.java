@@ -0,0 +1,123 @@
+package com.rylinaux.plugman.util;
+
+/*
+ * #%L
+ * PlugMan
+ * %%
+ * Copyright (C) 2010 - 2015 PlugMan
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Case-insensitive index of the loaded plugins by name.
+ *
+ * @author rylinaux
+ */
+public class PluginNameIndex {
+
+    /**
+     * Lower-cased plugin names mapped to the loaded plugins.
+     */
+    private final Map<String, Plugin> plugins = new ConcurrentHashMap<>();
+
+    /**
+     * Incremented whenever the indexed plugins change.
+     */
+    private final AtomicInteger modCount = new AtomicInteger();
+
+    /**
+     * Rebuild the index from scratch.
+     *
+     * @param loaded the loaded plugins.
+     */
+    public void rebuild(Plugin[] loaded) {
+        plugins.clear();
+        for (Plugin plugin : loaded) {
+            put(plugin);
+        }
+        modCount.incrementAndGet();
+    }
+
+    /**
+     * Index a loaded plugin, replacing any earlier plugin with the same name.
+     *
+     * @param plugin the plugin.
+     */
+    public void put(Plugin plugin) {
+        if (plugins.put(plugin.getName().toLowerCase(), plugin) != plugin) {
+            modCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Forget an unloaded plugin. Nothing happens if another plugin has since taken its name.
+     *
+     * @param plugin the plugin.
+     */
+    public void remove(Plugin plugin) {
+        String key = plugin.getName().toLowerCase();
+        if (plugins.get(key) == plugin) {
+            plugins.remove(key);
+            modCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Get a loaded plugin by name, ignoring case.
+     *
+     * @param name the name of the plugin.
+     * @return the plugin, or null if none is indexed.
+     */
+    public Plugin get(String name) {
+        return plugins.get(name.toLowerCase());
+    }
+
+    /**
+     * Get the names of all indexed plugins.
+     *
+     * @return the plugin names.
+     */
+    public List<String> getNames() {
+        List<String> names = new ArrayList<>(plugins.size());
+        for (Plugin plugin : plugins.values()) {
+            names.add(plugin.getName());
+        }
+        return names;
+    }
+
+    /**
+     * Get a counter that changes whenever the indexed plugins change, so derived data can tell when it is stale.
+     *
+     * @return the modification count.
+     */
+    public int getModCount() {
+        return modCount.get();
+    }
+
+}
@@ -30,19 +30,23 @@ import com.google.common.base.Joiner;
 
 import java.io.File;
 import java.io.IOException;
-import java.lang.reflect.Field;
 import java.net.URLClassLoader;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.regex.Pattern;
 
 import com.rylinaux.plugman.PlugMan;
+import com.rylinaux.plugman.pojo.JarDescriptor;
+import com.rylinaux.plugman.pojo.OperationTiming;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
 import org.bukkit.command.PluginCommand;
 import org.bukkit.command.SimpleCommandMap;
-import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
 import org.bukkit.plugin.*;
 
 /**
@@ -59,7 +63,10 @@ public class PluginUtil {
      */
     public static void enable(Plugin plugin) {
         if (plugin != null && !plugin.isEnabled()) {
+            OperationTiming timing = new OperationTiming("enable", plugin.getName());
             Bukkit.getPluginManager().enablePlugin(plugin);
+            timing.mark("enable");
+            record(timing);
         }
     }
 
@@ -74,6 +81,16 @@ public class PluginUtil {
         }
     }
 
+    /**
+     * Enable all plugins in dependency order, spread across ticks.
+     *
+     * @param sender   the sender to report progress to, may be null
+     * @param callback run once every plugin has been enabled, may be null
+     */
+    public static void enableAll(CommandSender sender, Runnable callback) {
+        new TickBudgetExecutor("Enable", getEnableSteps(getManagedPlugins()), sender, callback).start();
+    }
+
     /**
      * Disable a plugin.
      *
@@ -81,7 +98,10 @@ public class PluginUtil {
      */
     public static void disable(Plugin plugin) {
         if (plugin != null && plugin.isEnabled()) {
+            OperationTiming timing = new OperationTiming("disable", plugin.getName());
             Bukkit.getPluginManager().disablePlugin(plugin);
+            timing.mark("disable");
+            record(timing);
         }
     }
 
@@ -96,6 +116,83 @@ public class PluginUtil {
         }
     }
 
+    /**
+     * Disable all plugins with dependents first, spread across ticks.
+     *
+     * @param sender   the sender to report progress to, may be null
+     * @param callback run once every plugin has been disabled, may be null
+     */
+    public static void disableAll(CommandSender sender, Runnable callback) {
+        new TickBudgetExecutor("Disable", getDisableSteps(getManagedPlugins()), sender, callback).start();
+    }
+
+    /**
+     * Disable then enable all plugins, preserving dependency order and spread across ticks.
+     *
+     * @param sender   the sender to report progress to, may be null
+     * @param callback run once every plugin has been restarted, may be null
+     */
+    public static void restartAll(CommandSender sender, Runnable callback) {
+        List<Plugin> plugins = getManagedPlugins();
+        List<Runnable> steps = getDisableSteps(plugins);
+        steps.addAll(getEnableSteps(plugins));
+        new TickBudgetExecutor("Restart", steps, sender, callback).start();
+    }
+
+    /**
+     * Returns the plugins that are not ignored, in load order.
+     *
+     * @return the plugins
+     */
+    private static List<Plugin> getManagedPlugins() {
+        List<Plugin> plugins = new ArrayList<>();
+        for (Plugin plugin : Bukkit.getPluginManager().getPlugins()) {
+            if (!isIgnored(plugin)) {
+                plugins.add(plugin);
+            }
+        }
+        return DependencyUtil.sortPlugins(plugins);
+    }
+
+    /**
+     * Returns steps enabling the plugins in the given order.
+     *
+     * @param plugins the plugins in load order
+     * @return the steps
+     */
+    private static List<Runnable> getEnableSteps(List<Plugin> plugins) {
+        List<Runnable> steps = new ArrayList<>();
+        for (final Plugin plugin : plugins) {
+            steps.add(new Runnable() {
+                @Override
+                public void run() {
+                    enable(plugin);
+                }
+            });
+        }
+        return steps;
+    }
+
+    /**
+     * Returns steps disabling the plugins in reverse order.
+     *
+     * @param plugins the plugins in load order
+     * @return the steps
+     */
+    private static List<Runnable> getDisableSteps(List<Plugin> plugins) {
+        List<Runnable> steps = new ArrayList<>();
+        for (int i = plugins.size() - 1; i >= 0; i--) {
+            final Plugin plugin = plugins.get(i);
+            steps.add(new Runnable() {
+                @Override
+                public void run() {
+                    disable(plugin);
+                }
+            });
+        }
+        return steps;
+    }
+
     /**
      * Returns the formatted name of the plugin.
      *
@@ -140,12 +237,18 @@ public class PluginUtil {
      * @return the plugin
      */
     public static Plugin getPluginByName(String name) {
-        for (Plugin plugin : Bukkit.getPluginManager().getPlugins()) {
-            if (name.equalsIgnoreCase(plugin.getName())) {
-                return plugin;
-            }
+
+        PluginNameIndex index = PlugMan.getInstance().getPluginNameIndex();
+
+        Plugin plugin = index.get(name);
+
+        // Not indexed - it may have been loaded by something other than PlugMan without being enabled.
+        if (plugin == null && (plugin = Bukkit.getPluginManager().getPlugin(name)) != null) {
+            index.put(plugin);
         }
-        return null;
+
+        return plugin;
+
     }
 
     /**
@@ -205,84 +308,39 @@ public class PluginUtil {
     }
 
     /**
-     * Find which plugin has a given command registered.
+     * Find which plugins have a given command or alias registered.
      *
      * @param command the command.
-     * @return the plugin.
+     * @return the names of the plugins.
      */
     public static List<String> findByCommand(String command) {
 
-        List<String> plugins = new ArrayList<>();
-
-        for (Plugin plugin : Bukkit.getPluginManager().getPlugins()) {
-
-            // Map of commands and their attributes.
-            Map<String, Map<String, Object>> commands = plugin.getDescription().getCommands();
-
-            if (commands != null) {
-
-                // Iterator for all the plugin's commands.
-                Iterator<Map.Entry<String, Map<String, Object>>> commandIterator = commands.entrySet().iterator();
-
-                while (commandIterator.hasNext()) {
-
-                    // Current value.
-                    Map.Entry<String, Map<String, Object>> commandNext = commandIterator.next();
-
-                    // Plugin name matches - return.
-                    if (commandNext.getKey().equalsIgnoreCase(command)) {
-                        plugins.add(plugin.getName());
-                        continue;
-                    }
-
-                    // No match - let's iterate over the attributes and see if
-                    // it has aliases.
-                    Iterator<Map.Entry<String, Object>> attributeIterator = commandNext.getValue().entrySet().iterator();
+        CommandIndex index = PlugMan.getInstance().getCommandIndex();
 
-                    while (attributeIterator.hasNext()) {
-
-                        // Current value.
-                        Map.Entry<String, Object> attributeNext = attributeIterator.next();
-
-                        // Has an alias attribute.
-                        if (attributeNext.getKey().equals("aliases")) {
-
-                            Object aliases = attributeNext.getValue();
-
-                            if (aliases instanceof String) {
-                                if (((String) aliases).equalsIgnoreCase(command)) {
-                                    plugins.add(plugin.getName());
-                                    continue;
-                                }
-                            } else {
-
-                                // Cast to a List of Strings.
-                                List<String> array = (List<String>) aliases;
-
-                                // Check for matches here.
-                                for (String str : array) {
-                                    if (str.equalsIgnoreCase(command)) {
-                                        plugins.add(plugin.getName());
-                                        continue;
-                                    }
-                                }
-
-                            }
-
-                        }
-
-                    }
-                }
+        List<String> plugins = index.find(command);
 
+        // Not indexed yet - it may have been registered at runtime since the last sweep.
+        if (plugins.isEmpty()) {
+            Map<String, Command> knownCommands = getKnownCommands();
+            if (knownCommands != null && index.addCommand(command.toLowerCase(), knownCommands.get(command.toLowerCase()))) {
+                plugins = index.find(command);
             }
-
         }
 
-        // No matches.
         return plugins;
 
     }
 
+    /**
+     * Returns the server's live map of registered commands.
+     *
+     * @return the known commands keyed by label, or null if they could not be accessed
+     */
+    public static Map<String, Command> getKnownCommands() {
+        ServerInternals internals = PlugMan.getInstance().getServerInternals();
+        return internals.getKnownCommands(internals.getCommandMap(Bukkit.getPluginManager()));
+    }
+
     /**
      * Checks whether the plugin is ignored.
      *
@@ -300,57 +358,113 @@ public class PluginUtil {
      * @return whether the plugin is ignored
      */
     public static boolean isIgnored(String plugin) {
-        for (String name : PlugMan.getInstance().getIgnoredPlugins()) {
-            if (name.equalsIgnoreCase(plugin)) {
-                return true;
-            }
-        }
-        return false;
+        return PlugMan.getInstance().getIgnoredNames().contains(plugin.toLowerCase());
     }
 
     /**
      * Loads and enables a plugin.
      *
-     * @param plugin plugin to load
+     * @param name plugin's name
      * @return status message
      */
-    private static String load(Plugin plugin) {
-        return load(plugin.getName());
+    public static String load(String name) {
+
+        if (!getPluginDirectory().isDirectory()) {
+            return PlugMan.getInstance().getMessageFormatter().format("load.plugin-dir");
+        }
+
+        OperationTiming timing = new OperationTiming("load", name);
+
+        File pluginFile = findPluginFile(name);
+
+        timing.mark("descriptor read");
+
+        if (pluginFile == null) {
+            return PlugMan.getInstance().getMessageFormatter().format("load.cannot-find");
+        }
+
+        return load(pluginFile, timing);
+
     }
 
     /**
-     * Loads and enables a plugin.
+     * Loads and enables a plugin, doing the file search and description check off the main thread.
+     * <p>
+     * Only loading and enabling, which Bukkit requires on the main thread, are hopped back with {@link ThreadUtil#sync(Runnable)}.
      *
-     * @param name plugin's name
-     * @return status message
+     * @param name   plugin's name
+     * @param sender the sender to report the status message to
      */
-    public static String load(String name) {
+    public static void loadAsync(final String name, final CommandSender sender) {
 
-        Plugin target = null;
+        ThreadUtil.async(new Runnable() {
 
-        File pluginDir = new File("plugins");
+            @Override
+            public void run() {
 
-        if (!pluginDir.isDirectory()) {
-            return PlugMan.getInstance().getMessageFormatter().format("load.plugin-directory");
-        }
+                final OperationTiming timing = new OperationTiming("load", name);
 
-        File pluginFile = new File(pluginDir, name + ".jar");
+                File file = null;
+                String error = null;
 
-        if (!pluginFile.isFile()) {
-            for (File f : pluginDir.listFiles()) {
-                if (f.getName().endsWith(".jar")) {
+                if (!getPluginDirectory().isDirectory()) {
+                    error = PlugMan.getInstance().getMessageFormatter().format("load.plugin-dir");
+                } else if ((file = findPluginFile(name)) == null) {
+                    error = PlugMan.getInstance().getMessageFormatter().format("load.cannot-find");
+                } else {
                     try {
-                        PluginDescriptionFile desc = PlugMan.getInstance().getPluginLoader().getPluginDescription(f);
-                        if (desc.getName().equalsIgnoreCase(name)) {
-                            pluginFile = f;
-                            break;
-                        }
+                        PlugMan.getInstance().getPluginLoader().getPluginDescription(file);
                     } catch (InvalidDescriptionException e) {
-                        return PlugMan.getInstance().getMessageFormatter().format("load.cannot-find");
+                        e.printStackTrace();
+                        error = PlugMan.getInstance().getMessageFormatter().format("load.invalid-description");
                     }
                 }
+
+                timing.mark("descriptor read");
+
+                final File pluginFile = file;
+                final String message = error;
+
+                ThreadUtil.sync(new Runnable() {
+                    @Override
+                    public void run() {
+                        timing.resume();
+                        if (message != null) {
+                            sender.sendMessage(message);
+                        } else if (getPluginByName(name) != null) {
+                            sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("load.already-loaded", name));
+                        } else {
+                            sender.sendMessage(load(pluginFile, timing));
+                        }
+                    }
+                });
+
             }
-        }
+
+        });
+
+    }
+
+    /**
+     * Loads and enables a plugin from its jar. Must be called on the main thread.
+     *
+     * @param pluginFile the plugin's jar
+     * @return status message
+     */
+    public static String load(File pluginFile) {
+        return load(pluginFile, new OperationTiming("load", pluginFile.getName()));
+    }
+
+    /**
+     * Loads and enables a plugin from its jar, recording the phases in the given timing. Must be called on the main thread.
+     *
+     * @param pluginFile the plugin's jar
+     * @param timing     the timing of the operation
+     * @return status message
+     */
+    private static String load(File pluginFile, OperationTiming timing) {
+
+        Plugin target = null;
 
         try {
             target = Bukkit.getPluginManager().loadPlugin(pluginFile);
@@ -362,34 +476,296 @@ public class PluginUtil {
             return PlugMan.getInstance().getMessageFormatter().format("load.invalid-plugin");
         }
 
+        timing.setPluginName(target.getName());
+        timing.mark("class load");
+
+        PlugMan.getInstance().getPluginNameIndex().put(target);
+        PlugMan.getInstance().getCommandIndex().addDescription(target.getDescription());
+
+        timing.mark("index update");
+
         target.onLoad();
+
+        timing.mark("onLoad");
+
         Bukkit.getPluginManager().enablePlugin(target);
 
+        timing.mark("enable");
+        record(timing);
+
         return PlugMan.getInstance().getMessageFormatter().format("load.loaded", target.getName());
 
     }
 
     /**
-     * Reload a plugin.
+     * Find the jar that provides a plugin. Only touches the disk, so it is safe to call off the main thread.
+     *
+     * @param name plugin's name
+     * @return the jar, or null if none provides the plugin
+     */
+    public static File findPluginFile(String name) {
+
+        File pluginFile = new File(getPluginDirectory(), name + ".jar");
+
+        if (pluginFile.isFile()) {
+            return pluginFile;
+        }
+
+        return PlugMan.getInstance().getDescriptorIndex().find(name);
+
+    }
+
+    /**
+     * Returns the directory plugins are loaded from.
+     *
+     * @return the plugins directory
+     */
+    private static File getPluginDirectory() {
+        return new File("plugins");
+    }
+
+    /**
+     * Reload a plugin, checking the replacement jar before the running plugin is unloaded.
+     *
+     * @param plugin the plugin to reload
+     * @return status message
+     */
+    public static String reload(Plugin plugin) {
+
+        File pluginFile = findPluginFile(plugin.getName());
+
+        String error = verify(plugin, pluginFile);
+
+        if (error != null) {
+            return error;
+        }
+
+        unload(plugin);
+
+        String loaded = load(pluginFile);
+
+        return getPluginByName(plugin.getName()) != null ? PlugMan.getInstance().getMessageFormatter().format("reload.reloaded", plugin.getName()) : loaded;
+
+    }
+
+    /**
+     * Reload a plugin, finding and checking the replacement jar off the main thread.
+     * <p>
+     * Only the unload and load are hopped back with {@link ThreadUtil#sync(Runnable)}, so the plugin is only missing for that part.
      *
      * @param plugin the plugin to reload
+     * @param sender the sender to report the status message to
+     */
+    public static void reloadAsync(final Plugin plugin, final CommandSender sender) {
+
+        final String name = plugin.getName();
+
+        ThreadUtil.async(new Runnable() {
+
+            @Override
+            public void run() {
+
+                final File pluginFile = findPluginFile(name);
+                final String error = verify(plugin, pluginFile);
+
+                ThreadUtil.sync(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (error != null) {
+                            sender.sendMessage(error);
+                        } else if (getPluginByName(name) != plugin) {
+                            sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("error.invalid-plugin"));
+                        } else {
+                            unload(plugin);
+                            String loaded = load(pluginFile);
+                            sender.sendMessage(getPluginByName(name) != null ? PlugMan.getInstance().getMessageFormatter().format("reload.reloaded", name) : loaded);
+                        }
+                    }
+                });
+
+            }
+
+        });
+
+    }
+
+    /**
+     * Check that the jar found for a plugin can replace it. Only reads the jar, so it is safe to call off the main thread.
+     *
+     * @param plugin     the running plugin
+     * @param pluginFile the replacement jar, may be null
+     * @return an error message, or null if the jar can replace the plugin
      */
-    public static void reload(Plugin plugin) {
-        if (plugin != null) {
-            unload(plugin);
-            load(plugin);
+    private static String verify(Plugin plugin, File pluginFile) {
+
+        if (pluginFile == null) {
+            return PlugMan.getInstance().getMessageFormatter().format("reload.verify-failed", plugin.getName(), "no jar provides it");
         }
+
+        try {
+            JarVerifier.verify(pluginFile, plugin.getName(), getAvailableNames());
+        } catch (InvalidDescriptionException | InvalidPluginException e) {
+            String reason = e.getMessage() != null ? e.getMessage() : e.getCause() != null ? e.getCause().toString() : e.toString();
+            return PlugMan.getInstance().getMessageFormatter().format("reload.verify-failed", plugin.getName(), reason);
+        }
+
+        return null;
+
+    }
+
+    /**
+     * Returns the lower-cased names of the loaded plugins, which replacement jars may depend on.
+     *
+     * @return the available plugin names
+     */
+    private static Set<String> getAvailableNames() {
+        Set<String> names = new HashSet<>();
+        for (String name : PlugMan.getInstance().getPluginNameIndex().getNames()) {
+            names.add(name.toLowerCase());
+        }
+        return names;
     }
 
     /**
      * Reload all plugins.
      */
     public static void reloadAll() {
-        for (Plugin plugin : Bukkit.getPluginManager().getPlugins()) {
-            if (!isIgnored(plugin)) {
-                reload(plugin);
+        reloadAll(null, null);
+    }
+
+    /**
+     * Reload all plugins in dependency order.
+     *
+     * @param sender   the sender to report progress to, may be null
+     * @param callback run on the main thread once every plugin has been reloaded, may be null
+     * @see #reload(Collection, CommandSender, Runnable)
+     */
+    public static void reloadAll(CommandSender sender, Runnable callback) {
+        reload(getManagedPlugins(), sender, callback);
+    }
+
+    /**
+     * Reload a batch of plugins in dependency order.
+     * <p>
+     * The jar descriptions for the whole batch are read in parallel off the main thread first, and plugins whose new jar
+     * fails {@link JarVerifier verification} are left running. The main thread then unloads dependents before their dependencies and loads dependencies before their dependents, spread across ticks.
+     *
+     * @param targets  the plugins to reload
+     * @param sender   the sender to report progress to, may be null
+     * @param callback run on the main thread once the reload has finished, even if it failed, may be null
+     */
+    public static void reload(final Collection<Plugin> targets, final CommandSender sender, final Runnable callback) {
+
+        ThreadUtil.async(new Runnable() {
+
+            @Override
+            public void run() {
+
+                try {
+
+                    DescriptorIndex index = PlugMan.getInstance().getDescriptorIndex();
+
+                    index.refresh();
+                    index.save();
+
+                    List<Plugin> reloadable = new ArrayList<>();
+                    List<JarDescriptor> descriptors = new ArrayList<>();
+
+                    final List<String> errors = new ArrayList<>();
+
+                    for (Plugin plugin : targets) {
+                        JarDescriptor descriptor = index.get(plugin.getName());
+                        if (descriptor == null) {
+                            errors.add(PlugMan.getInstance().getMessageFormatter().format("reload.no-jar", plugin.getName()));
+                            continue;
+                        }
+                        // Leave plugins whose new jar would not load running instead of unloading them.
+                        String error = verify(plugin, index.getFile(descriptor));
+                        if (error != null) {
+                            errors.add(error);
+                            continue;
+                        }
+                        reloadable.add(plugin);
+                        descriptors.add(descriptor);
+                    }
+
+                    final List<Runnable> steps = new ArrayList<>();
+
+                    final AtomicInteger failures = new AtomicInteger(errors.size());
+
+                    List<Plugin> unloadOrder = DependencyUtil.sortPlugins(reloadable);
+                    Collections.reverse(unloadOrder);
+
+                    for (final Plugin plugin : unloadOrder) {
+                        steps.add(new Runnable() {
+                            @Override
+                            public void run() {
+                                unload(plugin);
+                            }
+                        });
+                    }
+
+                    for (JarDescriptor descriptor : DependencyUtil.sortDescriptors(descriptors)) {
+                        final File pluginFile = index.getFile(descriptor);
+                        final String name = descriptor.getName();
+                        steps.add(new Runnable() {
+                            @Override
+                            public void run() {
+                                String loaded = load(pluginFile);
+                                if (getPluginByName(name) == null) {
+                                    failures.incrementAndGet();
+                                    if (sender != null) {
+                                        sender.sendMessage(loaded);
+                                    }
+                                }
+                            }
+                        });
+                    }
+
+                    final Runnable done = new Runnable() {
+                        @Override
+                        public void run() {
+                            if (sender != null && failures.get() > 0) {
+                                sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("reload.incomplete", failures.get(), targets.size()));
+                            }
+                            if (callback != null) {
+                                callback.run();
+                            }
+                        }
+                    };
+
+                    ThreadUtil.sync(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (sender != null) {
+                                for (String error : errors) {
+                                    sender.sendMessage(error);
+                                }
+                            }
+                            new TickBudgetExecutor("Reload", steps, sender, done).start();
+                        }
+                    });
+
+                } catch (RuntimeException e) {
+                    // Whatever went wrong, the callback still runs, so callers waiting on it are never left hanging.
+                    Logger.getLogger(PluginUtil.class.getName()).log(Level.SEVERE, "Could not prepare the reload", e);
+                    ThreadUtil.sync(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (sender != null) {
+                                sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("reload.failed"));
+                            }
+                            if (callback != null) {
+                                callback.run();
+                            }
+                        }
+                    });
+                }
+
             }
-        }
+
+        });
+
     }
 
     /**
@@ -399,127 +775,225 @@ public class PluginUtil {
      * @return the message to send to the user.
      */
     public static String unload(Plugin plugin) {
+        return unload(Collections.singletonList(plugin)).get(0);
+    }
 
-        String name = plugin.getName();
+    /**
+     * Unload several plugins at once.
+     * <p>
+     * The plugins are disabled dependents first, then the plugin list, name lookup, handler lists and command map are
+     * each swept once for the whole batch rather than once per plugin.
+     *
+     * @param targets the plugins to unload
+     * @return the messages to send to the user, one per plugin.
+     */
+    public static List<String> unload(Collection<Plugin> targets) {
+
+        List<String> messages = new ArrayList<>();
 
         PluginManager pluginManager = Bukkit.getPluginManager();
 
-        SimpleCommandMap commandMap = null;
+        ServerInternals internals = PlugMan.getInstance().getServerInternals();
 
-        List<Plugin> plugins = null;
+        // Fail before touching the plugins if the server does not have what unloading needs.
+        if (!internals.canUnload()) {
+            for (Plugin plugin : targets) {
+                messages.add(PlugMan.getInstance().getMessageFormatter().format("unload.unsupported", plugin.getName(), Joiner.on(", ").join(internals.getMissing())));
+            }
+            return messages;
+        }
 
-        Map<String, Plugin> names = null;
-        Map<String, Command> commands = null;
-        Map<Event, SortedSet<RegisteredListener>> listeners = null;
+        List<Plugin> plugins = internals.getPlugins(pluginManager);
+        Map<String, Plugin> names = internals.getLookupNames(pluginManager);
+        SimpleCommandMap commandMap = internals.getCommandMap(pluginManager);
+        Map<String, Command> commands = internals.getKnownCommands(commandMap);
 
-        boolean reloadlisteners = true;
+        if (plugins == null || names == null || commands == null) {
+            for (Plugin plugin : targets) {
+                messages.add(PlugMan.getInstance().getMessageFormatter().format("unload.failed", plugin.getName()));
+            }
+            return messages;
+        }
+
+        List<Plugin> unloadOrder = DependencyUtil.sortPlugins(targets);
+        Collections.reverse(unloadOrder);
 
-        if (pluginManager != null) {
+        Set<Plugin> unloading = Collections.newSetFromMap(new IdentityHashMap<Plugin, Boolean>());
+        unloading.addAll(unloadOrder);
+
+        // One timing per plugin; the sweeps shared by the whole batch are split evenly between them.
+        Map<Plugin, OperationTiming> timings = new LinkedHashMap<>();
+        for (Plugin plugin : unloadOrder) {
+            timings.put(plugin, new OperationTiming("unload", plugin.getName()));
+        }
 
+        for (Plugin plugin : unloadOrder) {
+            OperationTiming timing = timings.get(plugin);
+            timing.resume();
             pluginManager.disablePlugin(plugin);
+            timing.mark("disable");
+        }
+
+        long phaseStart = System.nanoTime();
+
+        for (Iterator<Plugin> it = plugins.iterator(); it.hasNext(); ) {
+            if (unloading.contains(it.next())) {
+                it.remove();
+            }
+        }
 
-            try {
+        for (Iterator<Plugin> it = names.values().iterator(); it.hasNext(); ) {
+            if (unloading.contains(it.next())) {
+                it.remove();
+            }
+        }
 
-                Field pluginsField = Bukkit.getPluginManager().getClass().getDeclaredField("plugins");
-                pluginsField.setAccessible(true);
-                plugins = (List<Plugin>) pluginsField.get(pluginManager);
+        for (Plugin plugin : unloadOrder) {
+            PlugMan.getInstance().getPluginNameIndex().remove(plugin);
+        }
 
-                Field lookupNamesField = Bukkit.getPluginManager().getClass().getDeclaredField("lookupNames");
-                lookupNamesField.setAccessible(true);
-                names = (Map<String, Plugin>) lookupNamesField.get(pluginManager);
+        phaseStart = share(timings.values(), "lookup cleanup", phaseStart);
 
-                try {
-                    Field listenersField = Bukkit.getPluginManager().getClass().getDeclaredField("listeners");
-                    listenersField.setAccessible(true);
-                    listeners = (Map<Event, SortedSet<RegisteredListener>>) listenersField.get(pluginManager);
-                } catch (Exception e) {
-                    reloadlisteners = false;
+        // Disabling already unregisters the plugins' listeners; one pass over the handler lists catches any registered since, such as from onDisable.
+        for (HandlerList handlerList : HandlerList.getHandlerLists()) {
+            for (RegisteredListener listener : handlerList.getRegisteredListeners()) {
+                if (unloading.contains(listener.getPlugin())) {
+                    handlerList.unregister(listener);
                 }
+            }
+        }
 
-                Field commandMapField = Bukkit.getPluginManager().getClass().getDeclaredField("commandMap");
-                commandMapField.setAccessible(true);
-                commandMap = (SimpleCommandMap) commandMapField.get(pluginManager);
-
-                Field knownCommandsField = SimpleCommandMap.class.getDeclaredField("knownCommands");
-                knownCommandsField.setAccessible(true);
-                commands = (Map<String, Command>) knownCommandsField.get(commandMap);
+        phaseStart = share(timings.values(), "listener purge", phaseStart);
 
-            } catch (NoSuchFieldException e) {
-                e.printStackTrace();
-                return PlugMan.getInstance().getMessageFormatter().format("unload.failed", name);
-            } catch (IllegalAccessException e) {
-                e.printStackTrace();
-                return PlugMan.getInstance().getMessageFormatter().format("unload.failed", name);
+        for (Iterator<Map.Entry<String, Command>> it = commands.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Command> entry = it.next();
+            if (entry.getValue() instanceof PluginCommand) {
+                PluginCommand c = (PluginCommand) entry.getValue();
+                if (unloading.contains(c.getPlugin())) {
+                    c.unregister(commandMap);
+                    it.remove();
+                }
             }
+        }
 
+        for (Plugin plugin : unloadOrder) {
+            PlugMan.getInstance().getCommandIndex().remove(plugin.getName());
         }
 
-        pluginManager.disablePlugin(plugin);
+        share(timings.values(), "command purge", phaseStart);
 
-        if (plugins != null && plugins.contains(plugin))
-            plugins.remove(plugin);
+        for (Plugin plugin : unloadOrder) {
 
-        if (names != null && names.containsKey(name))
-            names.remove(name);
+            OperationTiming timing = timings.get(plugin);
+            timing.resume();
 
-        if (listeners != null && reloadlisteners) {
-            for (SortedSet<RegisteredListener> set : listeners.values()) {
-                for (Iterator<RegisteredListener> it = set.iterator(); it.hasNext(); ) {
-                    RegisteredListener value = it.next();
-                    if (value.getPlugin() == plugin) {
-                        it.remove();
-                    }
+            // Attempt to close the classloader to unlock any handles on the plugin's jar file.
+            ClassLoader cl = plugin.getClass().getClassLoader();
+
+            if (cl instanceof URLClassLoader) {
+
+                internals.clearPluginReferences(cl);
+
+                try {
+                    ((URLClassLoader) cl).close();
+                } catch (IOException ex) {
+                    Logger.getLogger(PluginUtil.class.getName()).log(Level.SEVERE, null, ex);
                 }
+
             }
-        }
 
-        if (commandMap != null) {
-            for (Iterator<Map.Entry<String, Command>> it = commands.entrySet().iterator(); it.hasNext(); ) {
-                Map.Entry<String, Command> entry = it.next();
-                if (entry.getValue() instanceof PluginCommand) {
-                    PluginCommand c = (PluginCommand) entry.getValue();
-                    if (c.getPlugin() == plugin) {
-                        c.unregister(commandMap);
-                        it.remove();
-                    }
-                }
+            if (PlugMan.getInstance().getLeakTracker() != null) {
+                PlugMan.getInstance().getLeakTracker().track(plugin.getName(), cl);
             }
+
+            timing.mark("classloader close");
+
         }
 
-        // Attempt to close the classloader to unlock any handles on the plugin's jar file.
-        ClassLoader cl = plugin.getClass().getClassLoader();
+        // Forcing a collection stops the world for a full GC, so it is opt-in. It may help on Windows,
+        // which refuses to unlock jar files that were previously loaded into the JVM until their classloader is collected.
+        // Will not work on processes started with the -XX:+DisableExplicitGC flag.
+        if (PlugMan.getInstance().getConfig().getBoolean("unload.force-gc", false)) {
+            long gcStart = System.nanoTime();
+            System.gc();
+            share(timings.values(), "gc", gcStart);
+        }
 
-        if (cl instanceof URLClassLoader) {
+        for (OperationTiming timing : timings.values()) {
+            record(timing);
+        }
 
-            try {
+        for (Plugin plugin : targets) {
+            messages.add(PlugMan.getInstance().getMessageFormatter().format("unload.unloaded", plugin.getName()));
+        }
 
-                Field pluginField = cl.getClass().getDeclaredField("plugin");
-                pluginField.setAccessible(true);
-                pluginField.set(cl, null);
+        return messages;
 
-                Field pluginInitField = cl.getClass().getDeclaredField("pluginInit");
-                pluginInitField.setAccessible(true);
-                pluginInitField.set(cl, null);
+    }
 
-            } catch (NoSuchFieldException | SecurityException | IllegalArgumentException | IllegalAccessException ex) {
-                Logger.getLogger(PluginUtil.class.getName()).log(Level.SEVERE, null, ex);
-            }
+    /**
+     * Find the loaded plugins whose names match a pattern, where '*' matches any run of characters and '?' any single one.
+     *
+     * @param pattern the pattern, matched case-insensitively
+     * @return the matching plugins
+     */
+    public static List<Plugin> matchPlugins(String pattern) {
 
-            try {
+        StringBuilder regex = new StringBuilder();
 
-                ((URLClassLoader) cl).close();
-            } catch (IOException ex) {
-                Logger.getLogger(PluginUtil.class.getName()).log(Level.SEVERE, null, ex);
+        for (String part : pattern.split("(?=[*?])|(?<=[*?])")) {
+            if (part.equals("*")) {
+                regex.append(".*");
+            } else if (part.equals("?")) {
+                regex.append('.');
+            } else if (!part.isEmpty()) {
+                regex.append(Pattern.quote(part));
             }
+        }
+
+        Pattern compiled = Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE);
 
+        List<Plugin> matches = new ArrayList<>();
+
+        for (Plugin plugin : Bukkit.getPluginManager().getPlugins()) {
+            if (compiled.matcher(plugin.getName()).matches()) {
+                matches.add(plugin);
+            }
         }
 
-        // Will not work on processes started with the -XX:+DisableExplicitGC flag, but lets try it anyway.
-        // This tries to get around the issue where Windows refuses to unlock jar files that were previously loaded into the JVM.
-        System.gc();
+        return matches;
+
+    }
 
-        return PlugMan.getInstance().getMessageFormatter().format("unload.unloaded", name);
+    /**
+     * Split the time since a phase started evenly between the timings of a batch.
+     *
+     * @param timings the timings of the batch
+     * @param phase   the name of the phase
+     * @param since   when the phase started, in nanoseconds
+     * @return when the phase ended, in nanoseconds
+     */
+    private static long share(Collection<OperationTiming> timings, String phase, long since) {
+        long now = System.nanoTime();
+        if (!timings.isEmpty()) {
+            long each = (now - since) / timings.size();
+            for (OperationTiming timing : timings) {
+                timing.add(phase, each);
+            }
+        }
+        return now;
+    }
 
+    /**
+     * Record a finished operation in the timing history, if PlugMan is running.
+     *
+     * @param timing the timing of the operation
+     */
+    private static void record(OperationTiming timing) {
+        TimingHistory history = PlugMan.getInstance() == null ? null : PlugMan.getInstance().getTimingHistory();
+        if (history != null) {
+            history.record(timing);
+        }
     }
 
 }
@@ -0,0 +1,166 @@
+package com.rylinaux.plugman.util;
+
+/*
+ * #%L
+ * PlugMan
+ * %%
+ * Copyright (C) 2010 - 2015 PlugMan
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.HttpConnectionFactory;
+import org.apache.http.conn.ManagedHttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.ManagedHttpClientConnectionFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+/**
+ * A shared HTTP client with a keep-alive connection pool and gzip support.
+ *
+ * @author rylinaux
+ */
+public class PooledHttpClient {
+
+    /**
+     * The number of requests executed.
+     */
+    private final AtomicLong requests = new AtomicLong();
+
+    /**
+     * The number of connections opened.
+     */
+    private final AtomicLong connections = new AtomicLong();
+
+    /**
+     * The connection pool.
+     */
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    /**
+     * The underlying client.
+     */
+    private final CloseableHttpClient client;
+
+    /**
+     * Construct the object.
+     *
+     * @param maxConnections the maximum number of pooled connections.
+     * @param connectTimeout the connect timeout in milliseconds.
+     * @param readTimeout    the read timeout in milliseconds.
+     */
+    public PooledHttpClient(int maxConnections, int connectTimeout, int readTimeout) {
+
+        HttpConnectionFactory<HttpRoute, ManagedHttpClientConnection> connectionFactory = new HttpConnectionFactory<HttpRoute, ManagedHttpClientConnection>() {
+            @Override
+            public ManagedHttpClientConnection create(HttpRoute route, ConnectionConfig config) {
+                connections.incrementAndGet();
+                return ManagedHttpClientConnectionFactory.INSTANCE.create(route, config);
+            }
+        };
+
+        this.connectionManager = new PoolingHttpClientConnectionManager(RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", SSLConnectionSocketFactory.getSocketFactory())
+                .build(), connectionFactory);
+        this.connectionManager.setMaxTotal(maxConnections);
+        this.connectionManager.setDefaultMaxPerRoute(maxConnections);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeout)
+                .setConnectionRequestTimeout(connectTimeout)
+                .setSocketTimeout(readTimeout)
+                .build();
+
+        this.client = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE)
+                .setUserAgent("PlugMan")
+                .build();
+
+    }
+
+    /**
+     * Execute a request. The response must be closed by the caller to return the connection to the pool.
+     *
+     * @param request the request.
+     * @return the response.
+     * @throws IOException if the request failed.
+     */
+    public CloseableHttpResponse execute(HttpUriRequest request) throws IOException {
+        requests.incrementAndGet();
+        return client.execute(request);
+    }
+
+    /**
+     * Get the number of requests executed.
+     *
+     * @return the number of requests.
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * Get the number of connections that had to be opened.
+     *
+     * @return the number of new connections.
+     */
+    public long getNewConnections() {
+        return connections.get();
+    }
+
+    /**
+     * Get the number of requests that were served over a pooled connection.
+     *
+     * @return the number of reused connections.
+     */
+    public long getReusedConnections() {
+        return Math.max(0, requests.get() - connections.get());
+    }
+
+    /**
+     * Close the client and every pooled connection.
+     */
+    public void close() {
+        try {
+            client.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        connectionManager.shutdown();
+    }
+
+}
@@ -0,0 +1,172 @@
+package com.rylinaux.plugman.util;
+
+/*
+ * #%L
+ * PlugMan
+ * %%
+ * Copyright (C) 2010 - 2015 PlugMan
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket shared by concurrent requests to one service.
+ * <p>
+ * Tokens are refilled at a fixed rate up to the burst size. When the service asks clients to slow down, the whole
+ * bucket can be paused so that every waiting request backs off together instead of each finding out on its own.
+ * A rate of zero or less disables the bucket, leaving only the pauses.
+ *
+ * @author rylinaux
+ */
+public class RateLimiter {
+
+    /**
+     * The number of tokens added per nanosecond.
+     */
+    private final double tokensPerNano;
+
+    /**
+     * Whether requests are only held back by pauses, not by the refill rate.
+     */
+    private final boolean unlimited;
+
+    /**
+     * The maximum number of tokens that can be stored.
+     */
+    private final double burst;
+
+    /**
+     * The number of stored tokens.
+     */
+    private double tokens;
+
+    /**
+     * When the tokens were last refilled, in nanoseconds.
+     */
+    private long refilledAt;
+
+    /**
+     * No token is handed out before this time, in nanoseconds.
+     */
+    private long pausedUntil;
+
+    /**
+     * Construct the object with a full bucket.
+     *
+     * @param perSecond the number of requests allowed per second, on average, or zero or less for no limit.
+     * @param burst     the number of requests allowed at once after a quiet period.
+     */
+    public RateLimiter(double perSecond, int burst) {
+        this.unlimited = perSecond <= 0;
+        this.tokensPerNano = unlimited ? 0 : perSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = Math.max(1, burst);
+        this.tokens = this.burst;
+        this.refilledAt = System.nanoTime();
+        this.pausedUntil = refilledAt;
+    }
+
+    /**
+     * Take a token, waiting for one to become available.
+     *
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public void acquire() throws InterruptedException {
+
+        while (true) {
+
+            long wait;
+
+            synchronized (this) {
+
+                long now = System.nanoTime();
+
+                refill(now);
+
+                if (now - pausedUntil < 0) {
+                    wait = pausedUntil - now;
+                } else if (unlimited) {
+                    return;
+                } else if (tokens >= 1) {
+                    tokens -= 1;
+                    return;
+                } else {
+                    wait = (long) Math.ceil((1 - tokens) / tokensPerNano);
+                }
+
+            }
+
+            TimeUnit.NANOSECONDS.sleep(Math.max(wait, 1));
+
+        }
+
+    }
+
+    /**
+     * Stop handing out tokens for a while and drain the bucket, so requests resume at the refill rate.
+     *
+     * @param millis how long to pause, in milliseconds.
+     */
+    public synchronized void pause(long millis) {
+        long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        if (until - pausedUntil > 0) {
+            pausedUntil = until;
+        }
+        tokens = 0;
+        refilledAt = Math.max(refilledAt, pausedUntil);
+    }
+
+    /**
+     * Get how long requests are paused for.
+     *
+     * @return the remaining pause in milliseconds, or 0 if not paused.
+     */
+    public synchronized long getRemainingPause() {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(pausedUntil - System.nanoTime()));
+    }
+
+    /**
+     * Compute an exponential backoff delay with full jitter.
+     *
+     * @param attempt the number of the failed attempt, starting at 0.
+     * @param base    the delay of the first retry, in milliseconds.
+     * @param max     the longest delay, in milliseconds.
+     * @return a random delay between 0 and the capped exponential delay, in milliseconds.
+     */
+    public static long backoff(int attempt, long base, long max) {
+        long ceiling = Math.min(max, base << Math.min(attempt, 30));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /**
+     * Add the tokens earned since the last refill.
+     *
+     * @param now the current time, in nanoseconds.
+     */
+    private void refill(long now) {
+        if (now - refilledAt > 0) {
+            tokens = Math.min(burst, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+        }
+    }
+
+}
@@ -0,0 +1,289 @@
+package com.rylinaux.plugman.util;
+
+/*
+ * #%L
+ * PlugMan
+ * %%
+ * Copyright (C) 2010 - 2015 PlugMan
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.bukkit.command.Command;
+import org.bukkit.command.SimpleCommandMap;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginManager;
+
+/**
+ * Cached accessors for the server internals that unloading needs.
+ * <p>
+ * The fields are looked up once, when the object is constructed, and turned into method handles. Which of them exist
+ * on the running server implementation is recorded, so callers can check up front instead of failing halfway.
+ *
+ * @author rylinaux
+ */
+public class ServerInternals {
+
+    /**
+     * Reads the plugin manager's list of plugins.
+     */
+    private final MethodHandle plugins;
+
+    /**
+     * Reads the plugin manager's map of plugins by name.
+     */
+    private final MethodHandle lookupNames;
+
+    /**
+     * Reads the plugin manager's command map.
+     */
+    private final MethodHandle commandMap;
+
+    /**
+     * Reads the command map's known commands.
+     */
+    private final MethodHandle knownCommands;
+
+    /**
+     * The class of the classloaders plugins are loaded by.
+     */
+    private final Class<?> pluginClassLoader;
+
+    /**
+     * Clears a plugin classloader's reference to its plugin.
+     */
+    private final MethodHandle pluginSetter;
+
+    /**
+     * Clears a plugin classloader's reference to its initializing plugin.
+     */
+    private final MethodHandle pluginInitSetter;
+
+    /**
+     * Whether each internal was found, in lookup order.
+     */
+    private final Map<String, Boolean> capabilities = new LinkedHashMap<>();
+
+    /**
+     * Probe the running server.
+     *
+     * @param pluginManager     the server's plugin manager.
+     * @param pluginClassLoader the classloader of any loaded plugin, used to find the plugin classloader class.
+     */
+    public ServerInternals(PluginManager pluginManager, ClassLoader pluginClassLoader) {
+        this.pluginClassLoader = pluginClassLoader.getClass();
+        this.plugins = getter("plugins", pluginManager.getClass(), "plugins");
+        this.lookupNames = getter("lookupNames", pluginManager.getClass(), "lookupNames");
+        this.commandMap = getter("commandMap", pluginManager.getClass(), "commandMap");
+        this.knownCommands = getter("knownCommands", SimpleCommandMap.class, "knownCommands");
+        this.pluginSetter = setter("plugin", this.pluginClassLoader, "plugin");
+        this.pluginInitSetter = setter("pluginInit", this.pluginClassLoader, "pluginInit");
+    }
+
+    /**
+     * Check whether every internal needed to unload a plugin exists.
+     *
+     * @return true if plugins can be unloaded.
+     */
+    public boolean canUnload() {
+        return plugins != null && lookupNames != null && commandMap != null && knownCommands != null;
+    }
+
+    /**
+     * Get the internals that do not exist on this server.
+     *
+     * @return the names of the missing internals.
+     */
+    public List<String> getMissing() {
+        List<String> missing = new ArrayList<>();
+        for (Map.Entry<String, Boolean> capability : capabilities.entrySet()) {
+            if (!capability.getValue()) {
+                missing.add(capability.getKey());
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Get whether each internal exists on this server.
+     *
+     * @return the internal names mapped to whether they were found.
+     */
+    public Map<String, Boolean> getCapabilities() {
+        return Collections.unmodifiableMap(capabilities);
+    }
+
+    /**
+     * Get the plugin manager's list of plugins.
+     *
+     * @param pluginManager the plugin manager.
+     * @return the live list, or null if it cannot be accessed.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Plugin> getPlugins(PluginManager pluginManager) {
+        return (List<Plugin>) get(plugins, pluginManager);
+    }
+
+    /**
+     * Get the plugin manager's map of plugins by name.
+     *
+     * @param pluginManager the plugin manager.
+     * @return the live map, or null if it cannot be accessed.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Plugin> getLookupNames(PluginManager pluginManager) {
+        return (Map<String, Plugin>) get(lookupNames, pluginManager);
+    }
+
+    /**
+     * Get the plugin manager's command map.
+     *
+     * @param pluginManager the plugin manager.
+     * @return the command map, or null if it cannot be accessed.
+     */
+    public SimpleCommandMap getCommandMap(PluginManager pluginManager) {
+        return (SimpleCommandMap) get(commandMap, pluginManager);
+    }
+
+    /**
+     * Get the command map's known commands.
+     *
+     * @param commandMap the command map.
+     * @return the live map of commands by label, or null if it cannot be accessed.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Command> getKnownCommands(SimpleCommandMap commandMap) {
+        return commandMap == null ? null : (Map<String, Command>) get(knownCommands, commandMap);
+    }
+
+    /**
+     * Clear a plugin classloader's references to its plugin, so they do not keep it alive.
+     *
+     * @param classLoader the classloader.
+     * @return true if the references were cleared.
+     */
+    public boolean clearPluginReferences(ClassLoader classLoader) {
+
+        if (classLoader.getClass() != pluginClassLoader || pluginSetter == null || pluginInitSetter == null) {
+            return false;
+        }
+
+        try {
+            pluginSetter.invoke(classLoader, null);
+            pluginInitSetter.invoke(classLoader, null);
+            return true;
+        } catch (Throwable t) {
+            Logger.getLogger(ServerInternals.class.getName()).log(Level.WARNING, "Could not clear the plugin references of " + classLoader, t);
+            return false;
+        }
+
+    }
+
+    /**
+     * Read a field through its cached handle.
+     *
+     * @param handle the getter, may be null.
+     * @param target the object to read from.
+     * @return the value, or null if it cannot be accessed.
+     */
+    private static Object get(MethodHandle handle, Object target) {
+
+        if (handle == null) {
+            return null;
+        }
+
+        try {
+            return handle.invoke(target);
+        } catch (Throwable t) {
+            Logger.getLogger(ServerInternals.class.getName()).log(Level.WARNING, "Could not read server internals", t);
+            return null;
+        }
+
+    }
+
+    /**
+     * Look up a getter for a field and record whether it exists.
+     *
+     * @param capability the name to record the result under.
+     * @param owner      the class declaring the field.
+     * @param name       the name of the field.
+     * @return the getter, or null if the field does not exist.
+     */
+    private MethodHandle getter(String capability, Class<?> owner, String name) {
+        Field field = find(owner, name);
+        try {
+            MethodHandle handle = field == null ? null : MethodHandles.lookup().unreflectGetter(field);
+            capabilities.put(capability, handle != null);
+            return handle;
+        } catch (IllegalAccessException e) {
+            capabilities.put(capability, false);
+            return null;
+        }
+    }
+
+    /**
+     * Look up a setter for a field and record whether it exists.
+     *
+     * @param capability the name to record the result under.
+     * @param owner      the class declaring the field.
+     * @param name       the name of the field.
+     * @return the setter, or null if the field does not exist.
+     */
+    private MethodHandle setter(String capability, Class<?> owner, String name) {
+        Field field = find(owner, name);
+        try {
+            MethodHandle handle = field == null ? null : MethodHandles.lookup().unreflectSetter(field);
+            capabilities.put(capability, handle != null);
+            return handle;
+        } catch (IllegalAccessException e) {
+            capabilities.put(capability, false);
+            return null;
+        }
+    }
+
+    /**
+     * Find a field declared by a class and make it accessible.
+     *
+     * @param owner the class declaring the field.
+     * @param name  the name of the field.
+     * @return the field, or null if it does not exist or cannot be made accessible.
+     */
+    private static Field find(Class<?> owner, String name) {
+        try {
+            Field field = owner.getDeclaredField(name);
+            field.setAccessible(true);
+            return field;
+        } catch (NoSuchFieldException | SecurityException e) {
+            return null;
+        }
+    }
+
+}
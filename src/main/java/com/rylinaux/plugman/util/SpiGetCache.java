@@ -0,0 +1,331 @@
+package com.rylinaux.plugman.util;
+
+/*
+ * #%L
+ * PlugMan
+ * %%
+ * Copyright (C) 2010 - 2015 PlugMan
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persistent cache of SpiGet resource ids and latest versions.
+ *
+ * @author rylinaux
+ */
+public class SpiGetCache {
+
+    /**
+     * The version of the on-disk format.
+     */
+    private static final int FORMAT = 1;
+
+    /**
+     * The JSON serializer.
+     */
+    private static final Gson GSON = new Gson();
+
+    /**
+     * The file the cache is persisted to.
+     */
+    private final File cacheFile;
+
+    /**
+     * How long a resource id stays valid, in milliseconds.
+     */
+    private final long resourceTtl;
+
+    /**
+     * How long it stays known that a plugin is not a resource, in milliseconds.
+     */
+    private final long missingTtl;
+
+    /**
+     * How long a latest version stays valid before it is revalidated, in milliseconds.
+     */
+    private final long versionTtl;
+
+    /**
+     * Resource ids keyed by lower-cased plugin name.
+     */
+    private final Map<String, ResourceEntry> resources = new ConcurrentHashMap<>();
+
+    /**
+     * Latest versions keyed by resource id.
+     */
+    private final Map<Long, VersionEntry> versions = new ConcurrentHashMap<>();
+
+    /**
+     * Whether the cache changed since it was last saved.
+     */
+    private volatile boolean dirty = false;
+
+    /**
+     * Construct the object.
+     *
+     * @param cacheFile   the file the cache is persisted to.
+     * @param resourceTtl how long a resource id stays valid, in milliseconds.
+     * @param missingTtl  how long it stays known that a plugin is not a resource, in milliseconds.
+     * @param versionTtl  how long a latest version stays valid, in milliseconds.
+     */
+    public SpiGetCache(File cacheFile, long resourceTtl, long missingTtl, long versionTtl) {
+        this.cacheFile = cacheFile;
+        this.resourceTtl = resourceTtl;
+        this.missingTtl = missingTtl;
+        this.versionTtl = versionTtl;
+    }
+
+    /**
+     * Read the persisted cache from disk.
+     */
+    public synchronized void read() {
+
+        if (!cacheFile.isFile()) {
+            return;
+        }
+
+        try (Reader reader = new InputStreamReader(new FileInputStream(cacheFile), StandardCharsets.UTF_8)) {
+
+            Stored stored = GSON.fromJson(reader, Stored.class);
+
+            if (stored == null || stored.format != FORMAT) {
+                return;
+            }
+
+            if (stored.resources != null) {
+                resources.putAll(stored.resources);
+            }
+
+            if (stored.versions != null) {
+                versions.putAll(stored.versions);
+            }
+
+        } catch (IOException | JsonParseException e) {
+            Logger.getLogger(SpiGetCache.class.getName()).log(Level.WARNING, "Could not read " + cacheFile.getName(), e);
+        }
+
+    }
+
+    /**
+     * Persist the cache to disk if it changed.
+     * <p>
+     * The cache is written to a temporary file that then replaces the old one, so a crash cannot leave it truncated.
+     */
+    public synchronized void save() {
+
+        if (!dirty) {
+            return;
+        }
+
+        cacheFile.getParentFile().mkdirs();
+
+        Stored stored = new Stored();
+        stored.format = FORMAT;
+        stored.resources = resources;
+        stored.versions = versions;
+
+        dirty = false;
+
+        File tempFile = new File(cacheFile.getParentFile(), cacheFile.getName() + ".tmp");
+
+        try {
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(tempFile), StandardCharsets.UTF_8)) {
+                GSON.toJson(stored, writer);
+            }
+            try {
+                Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            dirty = true;
+            Logger.getLogger(SpiGetCache.class.getName()).log(Level.WARNING, "Could not save " + cacheFile.getName(), e);
+        }
+
+    }
+
+    /**
+     * Get the cached resource id of a plugin.
+     *
+     * @param pluginName the plugin name.
+     * @return the resource id, -1 if the plugin is known not to be a resource, or null if unknown or expired.
+     */
+    public Long getResourceId(String pluginName) {
+        ResourceEntry entry = resources.get(pluginName.toLowerCase());
+        if (entry == null || System.currentTimeMillis() - entry.fetched > (entry.id < 0 ? missingTtl : resourceTtl)) {
+            return null;
+        }
+        return entry.id;
+    }
+
+    /**
+     * Cache the resource id of a plugin.
+     *
+     * @param pluginName the plugin name.
+     * @param id         the resource id, or -1 if the plugin is not a resource.
+     */
+    public void putResourceId(String pluginName, long id) {
+        resources.put(pluginName.toLowerCase(), new ResourceEntry(id, System.currentTimeMillis()));
+        dirty = true;
+    }
+
+    /**
+     * Get the cached latest version of a resource, fresh or not.
+     *
+     * @param id the resource id.
+     * @return the cached entry, or null if none.
+     */
+    public VersionEntry getVersion(long id) {
+        return versions.get(id);
+    }
+
+    /**
+     * Check whether a cached version can be used without revalidation.
+     *
+     * @param entry the cached entry.
+     * @return true if the entry is still fresh.
+     */
+    public boolean isFresh(VersionEntry entry) {
+        return System.currentTimeMillis() - entry.fetched <= versionTtl;
+    }
+
+    /**
+     * Cache the latest version of a resource.
+     *
+     * @param id           the resource id.
+     * @param version      the latest version.
+     * @param etag         the ETag of the response, if any.
+     * @param lastModified the Last-Modified date of the response, if any.
+     */
+    public void putVersion(long id, String version, String etag, String lastModified) {
+        versions.put(id, new VersionEntry(version, etag, lastModified, System.currentTimeMillis()));
+        dirty = true;
+    }
+
+    /**
+     * Mark a cached version as revalidated.
+     *
+     * @param id    the resource id.
+     * @param entry the entry that was confirmed unchanged.
+     */
+    public void revalidate(long id, VersionEntry entry) {
+        putVersion(id, entry.version, entry.etag, entry.lastModified);
+    }
+
+    /**
+     * A cached resource id.
+     */
+    private static class ResourceEntry {
+
+        private long id;
+
+        private long fetched;
+
+        private ResourceEntry(long id, long fetched) {
+            this.id = id;
+            this.fetched = fetched;
+        }
+
+    }
+
+    /**
+     * A cached latest version with its validators.
+     */
+    public static class VersionEntry {
+
+        private String version;
+
+        private String etag;
+
+        private String lastModified;
+
+        private long fetched;
+
+        private VersionEntry(String version, String etag, String lastModified, long fetched) {
+            this.version = version;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.fetched = fetched;
+        }
+
+        /**
+         * Get the latest version.
+         *
+         * @return the latest version.
+         */
+        public String getVersion() {
+            return version;
+        }
+
+        /**
+         * Get the ETag of the response the version came from.
+         *
+         * @return the ETag, or null.
+         */
+        public String getEtag() {
+            return etag;
+        }
+
+        /**
+         * Get the Last-Modified date of the response the version came from.
+         *
+         * @return the date, or null.
+         */
+        public String getLastModified() {
+            return lastModified;
+        }
+
+    }
+
+    /**
+     * The persisted form of the cache.
+     */
+    private static class Stored {
+
+        private int format;
+
+        private Map<String, ResourceEntry> resources;
+
+        private Map<Long, VersionEntry> versions;
+
+    }
+
+}
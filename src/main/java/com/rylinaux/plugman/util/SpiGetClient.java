@@ -0,0 +1,616 @@
+package com.rylinaux.plugman.util;
+
+/*
+ * #%L
+ * PlugMan
+ * %%
+ * Copyright (C) 2010 - 2015 PlugMan
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.rylinaux.plugman.pojo.UpdateResult;
+import com.rylinaux.plugman.pojo.Version;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.util.EntityUtils;
+
+/**
+ * Client for the SpiGet API.
+ * <p>
+ * Holds no reference to the running plugin, so it can be pointed at any server implementing the SpiGet endpoints.
+ * Requests are paced by a shared {@link RateLimiter}; throttled requests are retried with backoff, and plugins that
+ * still cannot be checked are reported as rate limited rather than invalid.
+ *
+ * @author rylinaux
+ */
+public class SpiGetClient {
+
+    /**
+     * The default base URL of the SpiGet API.
+     */
+    public static final String DEFAULT_BASE_URL = "https://api.spiget.org/v2/";
+
+    /**
+     * Creates the worker threads for concurrent checks.
+     */
+    private static final ThreadFactory THREAD_FACTORY = new ThreadFactoryBuilder().setNameFormat("PlugMan Update Check #%d").setDaemon(true).build();
+
+    /**
+     * The status code of a throttled request, missing from {@link HttpStatus}.
+     */
+    private static final int SC_TOO_MANY_REQUESTS = 429;
+
+    /**
+     * The base URL of the API, ending with a slash.
+     */
+    private final String baseUrl;
+
+    /**
+     * The HTTP client requests are sent with.
+     */
+    private final PooledHttpClient httpClient;
+
+    /**
+     * The cache of lookups.
+     */
+    private final SpiGetCache cache;
+
+    /**
+     * The maximum number of plugins checked at the same time.
+     */
+    private final int parallelism;
+
+    /**
+     * Paces the requests of all worker threads.
+     */
+    private final RateLimiter rateLimiter;
+
+    /**
+     * How often a throttled request is retried before giving up.
+     */
+    private final int maxRetries;
+
+    /**
+     * The delay before the first retry, in milliseconds.
+     */
+    private final long backoff;
+
+    /**
+     * The longest delay worth waiting for before giving up, in milliseconds.
+     */
+    private final long maxBackoff;
+
+    /**
+     * The number of throttled responses received.
+     */
+    private final AtomicLong throttled = new AtomicLong();
+
+    /**
+     * Receives the result of each plugin as soon as its check completes.
+     */
+    public interface Callback {
+
+        /**
+         * Called from a worker thread when a plugin has been checked.
+         *
+         * @param pluginName the plugin name.
+         * @param result     the result of the check.
+         */
+        void onResult(String pluginName, UpdateResult result);
+
+    }
+
+    /**
+     * Construct the object.
+     *
+     * @param baseUrl     the base URL of the API.
+     * @param httpClient  the HTTP client requests are sent with.
+     * @param cache       the cache of lookups.
+     * @param parallelism the maximum number of plugins checked at the same time.
+     * @param rateLimiter paces the requests of all worker threads.
+     * @param maxRetries  how often a throttled request is retried before giving up.
+     * @param backoff     the delay before the first retry, in milliseconds.
+     * @param maxBackoff  the longest delay worth waiting for before giving up, in milliseconds.
+     */
+    public SpiGetClient(String baseUrl, PooledHttpClient httpClient, SpiGetCache cache, int parallelism, RateLimiter rateLimiter, int maxRetries, long backoff, long maxBackoff) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+        this.httpClient = httpClient;
+        this.cache = cache;
+        this.parallelism = Math.max(1, parallelism);
+        this.rateLimiter = rateLimiter;
+        this.maxRetries = Math.max(0, maxRetries);
+        this.backoff = Math.max(1, backoff);
+        this.maxBackoff = Math.max(this.backoff, maxBackoff);
+    }
+
+    /**
+     * Check several plugins concurrently, bounded by the parallelism.
+     * <p>
+     * Blocks until every plugin has been checked; results are handed to the callback as they complete.
+     *
+     * @param currentVersions the plugin names mapped to their installed versions, null if not installed.
+     * @param callback        the callback receiving each result.
+     */
+    public void checkUpToDate(Map<String, String> currentVersions, final Callback callback) {
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, currentVersions.size())), THREAD_FACTORY);
+
+        for (final Map.Entry<String, String> plugin : currentVersions.entrySet()) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    UpdateResult result;
+                    try {
+                        result = checkUpToDate(plugin.getKey(), plugin.getValue());
+                    } catch (RuntimeException e) {
+                        e.printStackTrace();
+                        result = new UpdateResult(UpdateResult.ResultType.INVALID_PLUGIN, plugin.getValue());
+                    }
+                    callback.onResult(plugin.getKey(), result);
+                }
+            });
+        }
+
+        executor.shutdown();
+
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        cache.save();
+
+    }
+
+    /**
+     * Check if an installed plugin version is up-to-date with the Spigot version.
+     *
+     * @param pluginName     the plugin name.
+     * @param currentVersion the installed version, null if not installed.
+     * @return the reflective UpdateResult.
+     */
+    public UpdateResult checkUpToDate(String pluginName, String currentVersion) {
+
+        long start = System.nanoTime();
+
+        long pluginId = -1;
+        String latestVersion = null;
+        Version.Comparison comparison = null;
+        UpdateResult.ResultType type;
+
+        try {
+
+            pluginId = getCachedPluginId(pluginName);
+
+            if (pluginId >= 0) {
+                latestVersion = fetchLatestVersion(pluginId);
+            }
+
+            if (latestVersion == null) {
+                type = UpdateResult.ResultType.INVALID_PLUGIN;
+            } else if (currentVersion == null) {
+                type = UpdateResult.ResultType.NOT_INSTALLED;
+            } else {
+                comparison = VersionUtil.compare(currentVersion, latestVersion);
+                if (comparison == Version.Comparison.EQUAL || comparison == Version.Comparison.AHEAD) {
+                    type = UpdateResult.ResultType.UP_TO_DATE;
+                } else {
+                    type = UpdateResult.ResultType.OUT_OF_DATE;
+                }
+            }
+
+        } catch (RateLimitedException e) {
+            type = UpdateResult.ResultType.RATE_LIMITED;
+        } catch (IOException e) {
+            e.printStackTrace();
+            type = UpdateResult.ResultType.INVALID_PLUGIN;
+        }
+
+        return new UpdateResult(type, currentVersion, latestVersion, comparison, pluginId, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+    }
+
+    /**
+     * Get the id of the plugin.
+     *
+     * @param name the name of the plugin.
+     * @return the id of the plugin.
+     */
+    public long getPluginId(String name) {
+        try {
+            return searchPluginId(name);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return -1;
+    }
+
+    /**
+     * Get the id of the plugin, using the cache where possible.
+     *
+     * @param name the name of the plugin.
+     * @return the id of the plugin, or -1 if it is not a resource.
+     * @throws IOException if the lookup failed.
+     */
+    private long getCachedPluginId(String name) throws IOException {
+
+        Long cached = cache.getResourceId(name);
+
+        if (cached != null) {
+            return cached;
+        }
+
+        long id = searchPluginId(name);
+        cache.putResourceId(name, id);
+        return id;
+
+    }
+
+    /**
+     * Search SpiGet for the id of the plugin.
+     *
+     * @param name the name of the plugin.
+     * @return the id of the plugin, or -1 if no resource has that name.
+     * @throws IOException if the request failed.
+     */
+    private long searchPluginId(String name) throws IOException {
+
+        HttpGet get = new HttpGet(baseUrl + "search/resources/" + name + "?field=name&fields=id%2Cname");
+
+        try (CloseableHttpResponse response = execute(get)) {
+
+            int status = response.getStatusLine().getStatusCode();
+
+            if (status == HttpStatus.SC_NOT_FOUND) {
+                EntityUtils.consume(response.getEntity());
+                return -1;
+            } else if (status != HttpStatus.SC_OK) {
+                EntityUtils.consume(response.getEntity());
+                throw new IOException("SpiGet returned " + response.getStatusLine() + " for " + name);
+            }
+
+            HttpEntity entity = response.getEntity();
+
+            try {
+                return findResourceId(new JsonReader(new InputStreamReader(entity.getContent(), StandardCharsets.UTF_8)), name);
+            } catch (IllegalStateException e) {
+                throw new IOException("Unexpected search response for " + name, e);
+            } finally {
+                EntityUtils.consume(entity);
+            }
+
+        }
+
+    }
+
+    /**
+     * Get the latest version of a plugin.
+     * <p>
+     * A fresh cached version is returned without a request; a stale one is revalidated with a conditional request.
+     *
+     * @param id the plugin id.
+     * @return the latest version, or null if it could not be determined.
+     */
+    public String getLatestVersion(long id) {
+        try {
+            return fetchLatestVersion(id);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Get the latest version of a plugin, using the cache where possible.
+     *
+     * @param id the plugin id.
+     * @return the latest version, or null if the resource has none.
+     * @throws IOException if the request failed.
+     */
+    private String fetchLatestVersion(long id) throws IOException {
+
+        SpiGetCache.VersionEntry cached = cache.getVersion(id);
+
+        if (cached != null && cache.isFresh(cached)) {
+            return cached.getVersion();
+        }
+
+        HttpGet get = new HttpGet(baseUrl + "resources/" + id + "/versions?size=1&sort=-releaseDate&fields=name");
+
+        if (cached != null && cached.getEtag() != null) {
+            get.setHeader(HttpHeaders.IF_NONE_MATCH, cached.getEtag());
+        }
+
+        if (cached != null && cached.getLastModified() != null) {
+            get.setHeader(HttpHeaders.IF_MODIFIED_SINCE, cached.getLastModified());
+        }
+
+        try (CloseableHttpResponse response = execute(get)) {
+
+            int status = response.getStatusLine().getStatusCode();
+
+            if (status == HttpStatus.SC_NOT_MODIFIED && cached != null) {
+                EntityUtils.consume(response.getEntity());
+                cache.revalidate(id, cached);
+                return cached.getVersion();
+            } else if (status != HttpStatus.SC_OK) {
+                EntityUtils.consume(response.getEntity());
+                return null;
+            }
+
+            HttpEntity entity = response.getEntity();
+
+            String latestVersion;
+
+            try {
+                latestVersion = readFirstName(new JsonReader(new InputStreamReader(entity.getContent(), StandardCharsets.UTF_8)));
+            } catch (IllegalStateException e) {
+                throw new IOException("Unexpected versions response for " + id, e);
+            } finally {
+                EntityUtils.consume(entity);
+            }
+
+            if (latestVersion != null) {
+                cache.putVersion(id, latestVersion, getHeader(response, HttpHeaders.ETAG), getHeader(response, HttpHeaders.LAST_MODIFIED));
+            }
+
+            return latestVersion;
+
+        }
+
+    }
+
+    /**
+     * Get the number of throttled responses received.
+     *
+     * @return the throttled count.
+     */
+    public long getThrottled() {
+        return throttled.get();
+    }
+
+    /**
+     * Send a request once the rate limiter allows it, retrying while SpiGet asks to slow down.
+     * <p>
+     * A Retry-After header pauses every worker, not just this one; without one the retry is delayed by an
+     * exponential backoff with full jitter.
+     *
+     * @param get the request.
+     * @return the response, which is not a throttled one.
+     * @throws RateLimitedException if the request is still throttled after the allowed retries or delays.
+     * @throws IOException          if the request failed.
+     */
+    private CloseableHttpResponse execute(HttpGet get) throws IOException {
+
+        for (int attempt = 0; ; attempt++) {
+
+            if (rateLimiter.getRemainingPause() > maxBackoff) {
+                throw new RateLimitedException("Requests to SpiGet are paused for another " + rateLimiter.getRemainingPause() + " ms");
+            }
+
+            try {
+                rateLimiter.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting to request " + get.getURI());
+            }
+
+            CloseableHttpResponse response = httpClient.execute(get);
+
+            int status = response.getStatusLine().getStatusCode();
+
+            if (status != SC_TOO_MANY_REQUESTS && status != HttpStatus.SC_SERVICE_UNAVAILABLE) {
+                return response;
+            }
+
+            throttled.incrementAndGet();
+
+            long retryAfter = getRetryAfter(response);
+
+            try {
+                EntityUtils.consume(response.getEntity());
+            } finally {
+                response.close();
+            }
+
+            long delay;
+
+            if (retryAfter >= 0) {
+                rateLimiter.pause(retryAfter);
+                delay = retryAfter + RateLimiter.backoff(0, backoff, backoff);
+            } else {
+                delay = RateLimiter.backoff(attempt, backoff, maxBackoff);
+            }
+
+            if (attempt >= maxRetries || delay > maxBackoff) {
+                throw new RateLimitedException("SpiGet returned " + response.getStatusLine() + " for " + get.getURI());
+            }
+
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while backing off from " + get.getURI());
+            }
+
+        }
+
+    }
+
+    /**
+     * Read the Retry-After header of a response, given either in seconds or as a date.
+     *
+     * @param response the response.
+     * @return the delay in milliseconds, or -1 if the header is missing or malformed.
+     */
+    private static long getRetryAfter(HttpResponse response) {
+
+        String value = getHeader(response, HttpHeaders.RETRY_AFTER);
+
+        if (value == null) {
+            return -1;
+        }
+
+        try {
+            return TimeUnit.SECONDS.toMillis(Math.max(0, Long.parseLong(value.trim())));
+        } catch (NumberFormatException e) {
+            Date date = DateUtils.parseDate(value);
+            return date == null ? -1 : Math.max(0, date.getTime() - System.currentTimeMillis());
+        }
+
+    }
+
+    /**
+     * Stream through search results until a resource with the given name is found.
+     *
+     * @param reader the reader positioned at the start of the response.
+     * @param name   the name of the plugin.
+     * @return the id of the resource, or -1 if none matched.
+     * @throws IOException if the response could not be read.
+     */
+    private static long findResourceId(JsonReader reader, String name) throws IOException {
+
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            return -1;
+        }
+
+        reader.beginArray();
+
+        while (reader.hasNext()) {
+
+            long id = -1;
+            String resourceName = null;
+
+            reader.beginObject();
+
+            while (reader.hasNext()) {
+                String field = reader.nextName();
+                if (field.equals("id") && reader.peek() == JsonToken.NUMBER) {
+                    id = reader.nextLong();
+                } else if (field.equals("name") && reader.peek() == JsonToken.STRING) {
+                    resourceName = reader.nextString();
+                } else {
+                    reader.skipValue();
+                }
+            }
+
+            reader.endObject();
+
+            if (name.equalsIgnoreCase(resourceName)) {
+                return id;
+            }
+
+        }
+
+        return -1;
+
+    }
+
+    /**
+     * Read the name of the first object in an array and stop.
+     *
+     * @param reader the reader positioned at the start of the response.
+     * @return the name, or null if the array is empty or the first object has no name.
+     * @throws IOException if the response could not be read.
+     */
+    private static String readFirstName(JsonReader reader) throws IOException {
+
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            return null;
+        }
+
+        reader.beginArray();
+
+        if (!reader.hasNext()) {
+            return null;
+        }
+
+        reader.beginObject();
+
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("name") && reader.peek() == JsonToken.STRING) {
+                return reader.nextString();
+            }
+            reader.skipValue();
+        }
+
+        return null;
+
+    }
+
+    /**
+     * Get the value of a response header.
+     *
+     * @param response the response.
+     * @param name     the header name.
+     * @return the value, or null if the header is absent.
+     */
+    private static String getHeader(HttpResponse response, String name) {
+        Header header = response.getFirstHeader(name);
+        return header == null ? null : header.getValue();
+    }
+
+    /**
+     * Thrown when SpiGet keeps throttling a request, so the plugin should be checked again later.
+     */
+    public static class RateLimitedException extends IOException {
+
+        /**
+         * The serialization version.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Construct the exception.
+         *
+         * @param message the detail message.
+         */
+        public RateLimitedException(String message) {
+            super(message);
+        }
+
+    }
+
+}
@@ -26,49 +26,55 @@ package com.rylinaux.plugman.util;
  * #L%
  */
 
-import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.TreeMap;
 
+import com.rylinaux.plugman.PlugMan;
 import com.rylinaux.plugman.pojo.UpdateResult;
-import org.apache.commons.io.IOUtils;
-import org.apache.http.HttpResponse;
-import org.apache.http.client.HttpClient;
-import org.apache.http.client.methods.HttpGet;
-import org.apache.http.impl.client.HttpClients;
-
-import org.bukkit.Bukkit;
-import org.bukkit.plugin.Plugin;
-
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
-import org.json.simple.JSONValue;
 
 /**
- * Utilities for dealing with the SpiGet API.
+ * Utilities for dealing with the SpiGet API, through the plugin's configured {@link SpiGetClient}.
  *
  * @author rylinaux
  */
 public class SpiGetUtil {
 
-    /**
-     * The base URL for the SpiGet API.
-     */
-    public static final String API_BASE_URL = "https://api.spiget.org/v2/";
-
     /**
      * Check which plugins are up-to-date or not.
      *
      * @return a map of the plugins and the results.
      */
     public static Map<String, UpdateResult> checkUpToDate() {
-        Map<String, UpdateResult> results = new TreeMap<>();
-        for (Plugin plugin : Bukkit.getPluginManager().getPlugins()) {
-            results.put(plugin.getName(), checkUpToDate(plugin.getName()));
-        }
+        final Map<String, UpdateResult> results = new TreeMap<>();
+        checkUpToDate(PluginUtil.getPluginNames(false), new SpiGetClient.Callback() {
+            @Override
+            public void onResult(String pluginName, UpdateResult result) {
+                synchronized (results) {
+                    results.put(pluginName, result);
+                }
+            }
+        });
         return results;
     }
 
+    /**
+     * Check several plugins concurrently, bounded by the configured parallelism.
+     * <p>
+     * Blocks until every plugin has been checked; results are handed to the callback as they complete.
+     *
+     * @param pluginNames the plugin names.
+     * @param callback    the callback receiving each result.
+     */
+    public static void checkUpToDate(Collection<String> pluginNames, SpiGetClient.Callback callback) {
+        Map<String, String> currentVersions = new LinkedHashMap<>();
+        for (String pluginName : pluginNames) {
+            currentVersions.put(pluginName, PluginUtil.getPluginVersion(pluginName));
+        }
+        PlugMan.getInstance().getSpiGetClient().checkUpToDate(currentVersions, callback);
+    }
+
     /**
      * Check if the installed plugin version is up-to-date with the Spigot version.
      *
@@ -76,36 +82,7 @@ public class SpiGetUtil {
      * @return the reflective UpdateResult.
      */
     public static UpdateResult checkUpToDate(String pluginName) {
-
-        long pluginId = SpiGetUtil.getPluginId(pluginName);
-
-        if (pluginId < 0) {
-            Plugin plugin = Bukkit.getPluginManager().getPlugin(pluginName);
-            return new UpdateResult(UpdateResult.ResultType.INVALID_PLUGIN, plugin.getDescription().getVersion());
-        }
-
-        JSONArray versions = SpiGetUtil.getPluginVersions(pluginId);
-
-        if (versions == null || versions.size() == 0) {
-            Plugin plugin = Bukkit.getPluginManager().getPlugin(pluginName);
-            return new UpdateResult(UpdateResult.ResultType.INVALID_PLUGIN, plugin.getDescription().getVersion());
-        }
-
-        JSONObject latest = (JSONObject) versions.get(0);
-
-        String currentVersion = PluginUtil.getPluginVersion(pluginName);
-        String latestVersion = (String) latest.get("name");
-        
-        if (currentVersion == null) {
-            return new UpdateResult(UpdateResult.ResultType.NOT_INSTALLED, currentVersion, latestVersion);
-        } else if (latestVersion == null) {
-            return new UpdateResult(UpdateResult.ResultType.INVALID_PLUGIN, currentVersion, latestVersion);
-        } else if (currentVersion.equalsIgnoreCase(latestVersion)) {
-            return new UpdateResult(UpdateResult.ResultType.UP_TO_DATE, currentVersion, latestVersion);
-        } else {
-            return new UpdateResult(UpdateResult.ResultType.OUT_OF_DATE, currentVersion, latestVersion);
-        }
-
+        return PlugMan.getInstance().getSpiGetClient().checkUpToDate(pluginName, PluginUtil.getPluginVersion(pluginName));
     }
 
     /**
@@ -115,67 +92,17 @@ public class SpiGetUtil {
      * @return the id of the plugin.
      */
     public static long getPluginId(String name) {
-
-        HttpClient client = HttpClients.createMinimal();
-
-        HttpGet get = new HttpGet(API_BASE_URL + "search/resources/" + name + "?field=name&fields=id%2Cname");
-        get.setHeader("User-Agent", "PlugMan");
-
-        try {
-
-            HttpResponse response = client.execute(get);
-            String body = IOUtils.toString(response.getEntity().getContent());
-
-            Object object = JSONValue.parse(body);
-
-            if (object instanceof JSONArray) {
-
-                JSONArray array = (JSONArray) JSONValue.parse(body);
-
-                for (int i = 0; i < array.size(); i++) {
-                    JSONObject json = (JSONObject) array.get(i);
-                    String pluginName = (String) json.get("name");
-                    if (name.equalsIgnoreCase(pluginName)) {
-                        return (long) json.get("id");
-                    }
-                }
-
-            }
-
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-
-        return -1;
-
+        return PlugMan.getInstance().getSpiGetClient().getPluginId(name);
     }
 
     /**
-     * Get the versions for a given plugin.
+     * Get the latest version of a plugin.
      *
      * @param id the plugin id.
-     * @return the JSON encoded data.
+     * @return the latest version, or null if it could not be determined.
      */
-    public static JSONArray getPluginVersions(long id) {
-
-        HttpClient client = HttpClients.createMinimal();
-
-        HttpGet get = new HttpGet(API_BASE_URL + "/resources/" + id + "/versions?sort=-releaseDate");
-        get.setHeader("User-Agent", "PlugMan");
-
-        try {
-
-            HttpResponse response = client.execute(get);
-            String body = IOUtils.toString(response.getEntity().getContent());
-
-            return (JSONArray) JSONValue.parse(body);
-
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-
-        return null;
-
+    public static String getLatestVersion(long id) {
+        return PlugMan.getInstance().getSpiGetClient().getLatestVersion(id);
     }
 
 }
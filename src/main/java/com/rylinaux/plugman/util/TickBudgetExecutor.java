@@ -0,0 +1,143 @@
+package com.rylinaux.plugman.util;
+
+/*
+ * #%L
+ * PlugMan
+ * %%
+ * Copyright (C) 2010 - 2015 PlugMan
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.rylinaux.plugman.PlugMan;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.scheduler.BukkitRunnable;
+
+/**
+ * Runs a list of main-thread steps spread across ticks, using at most a fixed number of milliseconds per tick.
+ *
+ * @author rylinaux
+ */
+public class TickBudgetExecutor extends BukkitRunnable {
+
+    /**
+     * How many ticks to wait between progress reports.
+     */
+    private static final int REPORT_INTERVAL = 20;
+
+    /**
+     * The name of the operation, used in progress reports.
+     */
+    private final String operation;
+
+    /**
+     * The steps to run, in order.
+     */
+    private final List<Runnable> steps;
+
+    /**
+     * The sender to report progress to, may be null.
+     */
+    private final CommandSender sender;
+
+    /**
+     * Run once every step has completed, may be null.
+     */
+    private final Runnable callback;
+
+    /**
+     * The budget per tick, in nanoseconds.
+     */
+    private final long budget;
+
+    /**
+     * The index of the next step to run.
+     */
+    private int next = 0;
+
+    /**
+     * The number of ticks since the last progress report.
+     */
+    private int ticks = 0;
+
+    /**
+     * Construct the object using the configured budget.
+     *
+     * @param operation the name of the operation.
+     * @param steps     the steps to run, in order.
+     * @param sender    the sender to report progress to, may be null.
+     * @param callback  run once every step has completed, may be null.
+     */
+    public TickBudgetExecutor(String operation, List<Runnable> steps, CommandSender sender, Runnable callback) {
+        this.operation = operation;
+        this.steps = new ArrayList<>(steps);
+        this.sender = sender;
+        this.callback = callback;
+        this.budget = TimeUnit.MILLISECONDS.toNanos(Math.max(1, PlugMan.getInstance().getConfig().getInt("bulk-operations.tick-budget", 20)));
+    }
+
+    /**
+     * Start running the steps on the next tick.
+     */
+    public void start() {
+        if (steps.isEmpty()) {
+            if (callback != null) {
+                callback.run();
+            }
+            return;
+        }
+        runTaskTimer(PlugMan.getInstance(), 0L, 1L);
+    }
+
+    @Override
+    public void run() {
+
+        long start = System.nanoTime();
+
+        // Always make progress, even when a single step exceeds the budget.
+        do {
+            try {
+                steps.get(next++).run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        } while (next < steps.size() && System.nanoTime() - start < budget);
+
+        if (next >= steps.size()) {
+            cancel();
+            if (callback != null) {
+                callback.run();
+            }
+            return;
+        }
+
+        if (sender != null && ++ticks >= REPORT_INTERVAL) {
+            ticks = 0;
+            sender.sendMessage(PlugMan.getInstance().getMessageFormatter().format("bulk.progress", operation, next, steps.size()));
+        }
+
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.rylinaux.plugman.util;
+
+/*
+ * #%L
+ * PlugMan
+ * %%
+ * Copyright (C) 2010 - 2015 PlugMan
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.rylinaux.plugman.pojo.OperationTiming;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the most recent operation timings in a fixed-size ring buffer.
+ *
+ * @author rylinaux
+ */
+public class TimingHistory {
+
+    /**
+     * The recorded timings.
+     */
+    private final OperationTiming[] timings;
+
+    /**
+     * The slot the next timing is written to.
+     */
+    private int next = 0;
+
+    /**
+     * The number of timings held.
+     */
+    private int size = 0;
+
+    /**
+     * Construct the object.
+     *
+     * @param capacity the maximum number of timings to keep.
+     */
+    public TimingHistory(int capacity) {
+        this.timings = new OperationTiming[Math.max(1, capacity)];
+    }
+
+    /**
+     * Record a finished operation, evicting the oldest one if the buffer is full.
+     *
+     * @param timing the timing.
+     */
+    public synchronized void record(OperationTiming timing) {
+        timings[next] = timing;
+        next = (next + 1) % timings.length;
+        size = Math.min(size + 1, timings.length);
+    }
+
+    /**
+     * Get the recorded timings, newest first.
+     *
+     * @param pluginName only include this plugin, or null for all.
+     * @param limit      the maximum number of timings to return.
+     * @return the timings.
+     */
+    public synchronized List<OperationTiming> getRecent(String pluginName, int limit) {
+        List<OperationTiming> recent = new ArrayList<>();
+        for (int i = 1; i <= size && recent.size() < limit; i++) {
+            OperationTiming timing = timings[(next - i + timings.length) % timings.length];
+            if (pluginName == null || pluginName.equalsIgnoreCase(timing.getPluginName())) {
+                recent.add(timing);
+            }
+        }
+        return recent;
+    }
+
+}
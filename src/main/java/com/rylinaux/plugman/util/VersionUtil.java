@@ -0,0 +1,84 @@
+package com.rylinaux.plugman.util;
+
+/*
+ * #%L
+ * PlugMan
+ * %%
+ * Copyright (C) 2010 - 2015 PlugMan
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.rylinaux.plugman.pojo.Version;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Utilities for comparing plugin versions.
+ *
+ * @author rylinaux
+ */
+public class VersionUtil {
+
+    /**
+     * The most parsed versions kept before the cache is cleared.
+     */
+    private static final int MAX_CACHED = 4096;
+
+    /**
+     * Parsed versions by the version as given.
+     */
+    private static final Map<String, Version> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * Parse a version, reusing an earlier parse of the same string.
+     *
+     * @param version the version.
+     * @return the parsed version.
+     */
+    public static Version parse(String version) {
+
+        Version parsed = CACHE.get(version);
+
+        if (parsed == null) {
+            if (CACHE.size() >= MAX_CACHED) {
+                CACHE.clear();
+            }
+            parsed = Version.parse(version);
+            CACHE.put(version, parsed);
+        }
+
+        return parsed;
+
+    }
+
+    /**
+     * Compare an installed version with the latest one.
+     *
+     * @param installed the installed version.
+     * @param latest    the latest version.
+     * @return whether the installed version is ahead of, behind or equal to the latest one, or incomparable.
+     */
+    public static Version.Comparison compare(String installed, String latest) {
+        return parse(installed).compareTo(parse(latest));
+    }
+
+}
@@ -0,0 +1,177 @@
+package com.rylinaux.plugman.benchmark;
+
+/*
+ * #%L
+ * PlugMan
+ * %%
+ * Copyright (C) 2010 - 2015 PlugMan
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.rylinaux.plugman.util.CommandIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks finding the plugins that own a command or alias.
+ *
+ * @author rylinaux
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CommandLookupBenchmark {
+
+    /**
+     * The number of plugins on the server.
+     */
+    @Param({"100", "500"})
+    public int plugins;
+
+    /**
+     * The number of commands each plugin declares.
+     */
+    @Param({"10"})
+    public int commands;
+
+    /**
+     * The commands looked up in turn: a mix of commands, aliases and unknown commands.
+     */
+    private String[] lookups;
+
+    /**
+     * The index of the next command to look up.
+     */
+    private int next = 0;
+
+    /**
+     * The command index.
+     */
+    private CommandIndex index;
+
+    @Setup
+    public void setup() {
+
+        FakeServer server = new FakeServer(plugins, commands);
+        server.install();
+
+        index = new CommandIndex();
+        index.rebuild(server.getPlugins(), null);
+
+        lookups = new String[64];
+
+        for (int i = 0; i < lookups.length; i++) {
+            int plugin = i * 7919 % plugins;
+            int command = i % commands;
+            lookups[i] = i % 3 == 0 ? "p" + plugin + "cmd" + command : i % 3 == 1 ? "P" + plugin + "ALIAS" + command : "missing" + i;
+        }
+
+    }
+
+    /**
+     * The description scan findByCommand used before the command index.
+     *
+     * @return the owning plugins
+     */
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public List<String> descriptionScan() {
+
+        String command = nextCommand();
+
+        List<String> owners = new ArrayList<>();
+
+        for (Plugin plugin : Bukkit.getPluginManager().getPlugins()) {
+
+            Map<String, Map<String, Object>> declared = plugin.getDescription().getCommands();
+
+            if (declared == null) {
+                continue;
+            }
+
+            for (Map.Entry<String, Map<String, Object>> entry : declared.entrySet()) {
+
+                if (entry.getKey().equalsIgnoreCase(command)) {
+                    owners.add(plugin.getName());
+                    continue;
+                }
+
+                for (Map.Entry<String, Object> attribute : entry.getValue().entrySet()) {
+                    if (attribute.getKey().equals("aliases")) {
+                        Object aliases = attribute.getValue();
+                        if (aliases instanceof String) {
+                            if (((String) aliases).equalsIgnoreCase(command)) {
+                                owners.add(plugin.getName());
+                            }
+                        } else {
+                            for (String alias : (List<String>) aliases) {
+                                if (alias.equalsIgnoreCase(command)) {
+                                    owners.add(plugin.getName());
+                                }
+                            }
+                        }
+                    }
+                }
+
+            }
+
+        }
+
+        return owners;
+
+    }
+
+    /**
+     * The reverse command index.
+     *
+     * @return the owning plugins
+     */
+    @Benchmark
+    public List<String> commandIndex() {
+        return index.find(nextCommand());
+    }
+
+    /**
+     * Returns the next command to look up.
+     *
+     * @return the command
+     */
+    private String nextCommand() {
+        String command = lookups[next];
+        next = (next + 1) % lookups.length;
+        return command;
+    }
+
+}
@@ -0,0 +1,240 @@
+package com.rylinaux.plugman.benchmark;
+
+/*
+ * #%L
+ * PlugMan
+ * %%
+ * Copyright (C) 2010 - 2015 PlugMan
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.io.StringReader;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.plugin.InvalidDescriptionException;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.PluginManager;
+
+/**
+ * Synthetic in-memory server for benchmarks, holding generated plugins with generated commands.
+ * <p>
+ * The server, plugin manager and plugins are dynamic proxies that only answer the calls the benchmarked code makes.
+ * Plugin i is named {@code Plugin<i>} and declares commands {@code p<i>cmd<j>} with aliases {@code p<i>alias<j>}.
+ *
+ * @author rylinaux
+ */
+public class FakeServer {
+
+    /**
+     * The fake server currently installed into {@link Bukkit}.
+     */
+    private static volatile FakeServer current = null;
+
+    /**
+     * The generated plugins.
+     */
+    private final Plugin[] plugins;
+
+    /**
+     * The generated plugins by exact name, as the real plugin manager keeps them.
+     */
+    private final Map<String, Plugin> lookupNames = new HashMap<>();
+
+    /**
+     * The plugin manager stand-in.
+     */
+    private final PluginManager pluginManager;
+
+    /**
+     * Generate a server.
+     *
+     * @param pluginCount       the number of plugins.
+     * @param commandsPerPlugin the number of commands each plugin declares.
+     */
+    public FakeServer(int pluginCount, int commandsPerPlugin) {
+
+        this.plugins = new Plugin[pluginCount];
+
+        for (int i = 0; i < pluginCount; i++) {
+            plugins[i] = createPlugin(i, commandsPerPlugin);
+            lookupNames.put(plugins[i].getName(), plugins[i]);
+        }
+
+        this.pluginManager = proxy(PluginManager.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                switch (method.getName()) {
+                    case "getPlugins":
+                        // The real plugin manager hands out a copy on every call.
+                        return plugins.clone();
+                    case "getPlugin":
+                        return lookupNames.get(args[0]);
+                    default:
+                        return defaultValue(proxy, method, args);
+                }
+            }
+        });
+
+    }
+
+    /**
+     * Make this server the one {@link Bukkit} returns. The underlying Bukkit server can only be set once per JVM,
+     * so it delegates to whichever fake server was installed last.
+     */
+    public void install() {
+
+        current = this;
+
+        if (Bukkit.getServer() == null) {
+            Bukkit.setServer(proxy(Server.class, new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    switch (method.getName()) {
+                        case "getPluginManager":
+                            return current.pluginManager;
+                        case "getLogger":
+                            return Logger.getLogger(FakeServer.class.getName());
+                        case "getName":
+                        case "getVersion":
+                        case "getBukkitVersion":
+                            return "FakeServer";
+                        default:
+                            return defaultValue(proxy, method, args);
+                    }
+                }
+            }));
+        }
+
+    }
+
+    /**
+     * Get the generated plugins.
+     *
+     * @return the plugins.
+     */
+    public Plugin[] getPlugins() {
+        return plugins;
+    }
+
+    /**
+     * Get the plugin manager stand-in.
+     *
+     * @return the plugin manager.
+     */
+    public PluginManager getPluginManager() {
+        return pluginManager;
+    }
+
+    /**
+     * Generate a plugin.
+     *
+     * @param index             the index of the plugin.
+     * @param commandsPerPlugin the number of commands it declares.
+     * @return the plugin.
+     */
+    private static Plugin createPlugin(int index, int commandsPerPlugin) {
+
+        StringBuilder yaml = new StringBuilder();
+
+        yaml.append("name: Plugin").append(index).append('\n');
+        yaml.append("version: 1.0.").append(index).append('\n');
+        yaml.append("main: bench.Plugin").append(index).append('\n');
+        yaml.append("commands:\n");
+
+        for (int j = 0; j < commandsPerPlugin; j++) {
+            yaml.append("  p").append(index).append("cmd").append(j).append(":\n");
+            yaml.append("    description: Generated command.\n");
+            yaml.append("    aliases: [p").append(index).append("alias").append(j).append("]\n");
+        }
+
+        final PluginDescriptionFile description;
+
+        try {
+            description = new PluginDescriptionFile(new StringReader(yaml.toString()));
+        } catch (InvalidDescriptionException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return proxy(Plugin.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                switch (method.getName()) {
+                    case "getName":
+                        return description.getName();
+                    case "getDescription":
+                        return description;
+                    case "isEnabled":
+                        return true;
+                    default:
+                        return defaultValue(proxy, method, args);
+                }
+            }
+        });
+
+    }
+
+    /**
+     * Create a proxy for an interface.
+     *
+     * @param type    the interface.
+     * @param handler the handler.
+     * @param <T>     the type of the interface.
+     * @return the proxy.
+     */
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(FakeServer.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    /**
+     * Answer the calls a stand-in does not implement: identity for {@link Object} methods, defaults for everything else.
+     *
+     * @param proxy  the proxy.
+     * @param method the method called.
+     * @param args   the arguments.
+     * @return the answer.
+     */
+    private static Object defaultValue(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "Fake" + proxy.getClass().getInterfaces()[0].getSimpleName();
+        }
+        Class<?> type = method.getReturnType();
+        if (type.isPrimitive() && type != void.class) {
+            // The zero value of the primitive type, boxed.
+            return Array.get(Array.newInstance(type, 1), 0);
+        }
+        return null;
+    }
+
+}
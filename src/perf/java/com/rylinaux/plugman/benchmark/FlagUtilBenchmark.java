@@ -0,0 +1,80 @@
+package com.rylinaux.plugman.benchmark;
+
+/*
+ * #%L
+ * PlugMan
+ * %%
+ * Copyright (C) 2010 - 2015 PlugMan
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.rylinaux.plugman.util.FlagUtil;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks checking command arguments for flags.
+ *
+ * @author rylinaux
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FlagUtilBenchmark {
+
+    /**
+     * Arguments of a typical command with a flag.
+     */
+    private final String[] withFlag = {"check", "all", "-f"};
+
+    /**
+     * Arguments of a typical command without a flag.
+     */
+    private final String[] withoutFlag = {"check", "all"};
+
+    /**
+     * A flag that is present. The arguments are copied first, as hasFlag may modify the array it is given.
+     *
+     * @return whether the flag was found
+     */
+    @Benchmark
+    public boolean present() {
+        return FlagUtil.hasFlag(withFlag.clone(), 'f');
+    }
+
+    /**
+     * A flag that is absent.
+     *
+     * @return whether the flag was found
+     */
+    @Benchmark
+    public boolean absent() {
+        return FlagUtil.hasFlag(withoutFlag.clone(), 'f');
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.rylinaux.plugman.benchmark;
+
+/*
+ * #%L
+ * PlugMan
+ * %%
+ * Copyright (C) 2010 - 2015 PlugMan
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.rylinaux.plugman.messaging.MessageFile;
+import com.rylinaux.plugman.messaging.MessageFormatter;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.ChatColor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks formatting messages from messages.yml.
+ *
+ * @author rylinaux
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MessageFormatterBenchmark {
+
+    /**
+     * The formatter.
+     */
+    private MessageFormatter formatter;
+
+    /**
+     * The raw message file, for the baseline.
+     */
+    private MessageFile messageFile;
+
+    @Setup
+    public void setup() {
+        formatter = new MessageFormatter();
+        messageFile = formatter.getMessageFile();
+    }
+
+    /**
+     * The YAML lookup and string replacement format used before message templates.
+     *
+     * @return the formatted message
+     */
+    @Benchmark
+    public String yamlReplace() {
+        String message = messageFile.get("prefix") + messageFile.get("check.out-of-date");
+        Object[] args = {"1.0.0", "1.2.0"};
+        for (int i = 0; i < args.length; i++) {
+            message = message.replace("{" + i + "}", String.valueOf(args[i]));
+        }
+        return ChatColor.translateAlternateColorCodes('&', message);
+    }
+
+    /**
+     * The compiled message templates.
+     *
+     * @return the formatted message
+     */
+    @Benchmark
+    public String template() {
+        return formatter.format("check.out-of-date", "1.0.0", "1.2.0");
+    }
+
+}
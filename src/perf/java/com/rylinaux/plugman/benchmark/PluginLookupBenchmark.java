@@ -0,0 +1,130 @@
+package com.rylinaux.plugman.benchmark;
+
+/*
+ * #%L
+ * PlugMan
+ * %%
+ * Copyright (C) 2010 - 2015 PlugMan
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.rylinaux.plugman.util.PluginNameIndex;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks resolving a plugin by name, ignoring case.
+ *
+ * @author rylinaux
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PluginLookupBenchmark {
+
+    /**
+     * The number of plugins on the server.
+     */
+    @Param({"100", "500"})
+    public int plugins;
+
+    /**
+     * The names looked up in turn: a mix of exact, differently cased and unknown names.
+     */
+    private String[] names;
+
+    /**
+     * The index of the next name to look up.
+     */
+    private int next = 0;
+
+    /**
+     * The name index.
+     */
+    private PluginNameIndex index;
+
+    @Setup
+    public void setup() {
+
+        FakeServer server = new FakeServer(plugins, 10);
+        server.install();
+
+        index = new PluginNameIndex();
+        index.rebuild(server.getPlugins());
+
+        names = new String[64];
+
+        for (int i = 0; i < names.length; i++) {
+            String name = "Plugin" + (i * 7919 % plugins);
+            names[i] = i % 4 == 0 ? name.toLowerCase() : i % 4 == 1 ? name.toUpperCase() : i % 4 == 2 ? name : "Missing" + i;
+        }
+
+    }
+
+    /**
+     * The linear scan getPluginByName used before the name index.
+     *
+     * @return the plugin found
+     */
+    @Benchmark
+    public Plugin linearScan() {
+        String name = nextName();
+        for (Plugin plugin : Bukkit.getPluginManager().getPlugins()) {
+            if (name.equalsIgnoreCase(plugin.getName())) {
+                return plugin;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The lower-cased name index.
+     *
+     * @return the plugin found
+     */
+    @Benchmark
+    public Plugin nameIndex() {
+        return index.get(nextName());
+    }
+
+    /**
+     * Returns the next name to look up.
+     *
+     * @return the name
+     */
+    private String nextName() {
+        String name = names[next];
+        next = (next + 1) % names.length;
+        return name;
+    }
+
+}
@@ -0,0 +1,466 @@
+package com.rylinaux.plugman.loadtest;
+
+/*
+ * #%L
+ * PlugMan
+ * %%
+ * Copyright (C) 2010 - 2015 PlugMan
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A local stand-in for the SpiGet API, serving the two endpoints the update check uses.
+ * <p>
+ * Resources are named {@code Plugin0} to {@code PluginN} with ids starting at {@link #FIRST_ID}. Latency, failures,
+ * throttling and slow bodies can be injected, and are read on every request so they may be changed while running.
+ *
+ * @author rylinaux
+ */
+public class SpiGetStandIn {
+
+    /**
+     * The id of the first resource.
+     */
+    public static final long FIRST_ID = 1000;
+
+    /**
+     * The path the API is served under.
+     */
+    private static final String CONTEXT = "/v2/";
+
+    /**
+     * The underlying server.
+     */
+    private final HttpServer server;
+
+    /**
+     * The threads handling requests.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * The number of resources served.
+     */
+    private final int resources;
+
+    /**
+     * The fixed delay before each response, in milliseconds.
+     */
+    private volatile int latency = 0;
+
+    /**
+     * The maximum random delay added to the fixed latency, in milliseconds.
+     */
+    private volatile int jitter = 0;
+
+    /**
+     * The fraction of requests answered with a server error.
+     */
+    private volatile double failureRate = 0;
+
+    /**
+     * The fraction of requests answered with 429 Too Many Requests.
+     */
+    private volatile double throttleRate = 0;
+
+    /**
+     * The Retry-After value sent with throttled responses, in seconds.
+     */
+    private volatile int retryAfter = 1;
+
+    /**
+     * The delay between body chunks, in milliseconds; 0 sends bodies at once.
+     */
+    private volatile int chunkDelay = 0;
+
+    /**
+     * The number of requests received.
+     */
+    private final AtomicLong requests = new AtomicLong();
+
+    /**
+     * The number of requests answered with a server error.
+     */
+    private final AtomicLong failures = new AtomicLong();
+
+    /**
+     * The number of requests answered with 429 Too Many Requests.
+     */
+    private final AtomicLong throttled = new AtomicLong();
+
+    /**
+     * The number of conditional requests answered with 304 Not Modified.
+     */
+    private final AtomicLong notModified = new AtomicLong();
+
+    /**
+     * Construct the object, bound to a free port on the loopback address.
+     *
+     * @param resources the number of resources served.
+     * @param threads   the number of threads handling requests.
+     * @throws IOException if the server could not be bound.
+     */
+    public SpiGetStandIn(int resources, int threads) throws IOException {
+        this.resources = resources;
+        // Headers and body are written separately, which Nagle's algorithm would delay by an ACK each.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("SpiGet Stand-in #%d").setDaemon(true).build());
+        server.createContext(CONTEXT, new Handler());
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Start serving requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stop serving requests.
+     */
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Get the base URL to configure the client with.
+     *
+     * @return the base URL, ending with a slash.
+     */
+    public String getBaseUrl() {
+        return "http://" + server.getAddress().getAddress().getHostAddress() + ":" + server.getAddress().getPort() + CONTEXT;
+    }
+
+    /**
+     * Get the name of a served resource.
+     *
+     * @param index the index of the resource.
+     * @return the resource name.
+     */
+    public static String getName(int index) {
+        return "Plugin" + index;
+    }
+
+    /**
+     * Get the latest version of a served resource.
+     *
+     * @param id the resource id.
+     * @return the latest version.
+     */
+    public static String getLatestVersion(long id) {
+        return "1." + (id % 7) + ".0";
+    }
+
+    /**
+     * Set the fixed delay before each response.
+     *
+     * @param latency the delay in milliseconds.
+     */
+    public void setLatency(int latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * Set the maximum random delay added to the fixed latency.
+     *
+     * @param jitter the delay in milliseconds.
+     */
+    public void setJitter(int jitter) {
+        this.jitter = jitter;
+    }
+
+    /**
+     * Set the fraction of requests answered with a server error.
+     *
+     * @param failureRate the fraction, between 0 and 1.
+     */
+    public void setFailureRate(double failureRate) {
+        this.failureRate = failureRate;
+    }
+
+    /**
+     * Set the fraction of requests answered with 429 Too Many Requests.
+     *
+     * @param throttleRate the fraction, between 0 and 1.
+     */
+    public void setThrottleRate(double throttleRate) {
+        this.throttleRate = throttleRate;
+    }
+
+    /**
+     * Set the Retry-After value sent with throttled responses.
+     *
+     * @param retryAfter the value in seconds.
+     */
+    public void setRetryAfter(int retryAfter) {
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Set the delay between body chunks, to emulate a slow connection.
+     *
+     * @param chunkDelay the delay in milliseconds; 0 sends bodies at once.
+     */
+    public void setChunkDelay(int chunkDelay) {
+        this.chunkDelay = chunkDelay;
+    }
+
+    /**
+     * Get the number of requests received.
+     *
+     * @return the request count.
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * Get the number of requests answered with a server error.
+     *
+     * @return the failure count.
+     */
+    public long getFailures() {
+        return failures.get();
+    }
+
+    /**
+     * Get the number of requests answered with 429 Too Many Requests.
+     *
+     * @return the throttled count.
+     */
+    public long getThrottled() {
+        return throttled.get();
+    }
+
+    /**
+     * Get the number of conditional requests answered with 304 Not Modified.
+     *
+     * @return the not modified count.
+     */
+    public long getNotModified() {
+        return notModified.get();
+    }
+
+    /**
+     * Look up the id of a resource by name.
+     *
+     * @param name the resource name.
+     * @return the id, or -1 if no resource has that name.
+     */
+    private long findId(String name) {
+        if (!name.regionMatches(true, 0, "Plugin", 0, 6)) {
+            return -1;
+        }
+        try {
+            int index = Integer.parseInt(name.substring(6));
+            return index >= 0 && index < resources ? FIRST_ID + index : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Check whether a resource id is served.
+     *
+     * @param id the resource id.
+     * @return true if the resource exists.
+     */
+    private boolean exists(long id) {
+        return id >= FIRST_ID && id < FIRST_ID + resources;
+    }
+
+    /**
+     * Answers the search and versions endpoints.
+     */
+    private class Handler implements HttpHandler {
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+
+            try {
+
+                requests.incrementAndGet();
+
+                delay();
+
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+
+                if (random.nextDouble() < throttleRate) {
+                    throttled.incrementAndGet();
+                    exchange.getResponseHeaders().set("Retry-After", String.valueOf(retryAfter));
+                    send(exchange, 429, "{\"error\":\"rate limited\"}");
+                    return;
+                }
+
+                if (random.nextDouble() < failureRate) {
+                    failures.incrementAndGet();
+                    send(exchange, 500, "{\"error\":\"internal error\"}");
+                    return;
+                }
+
+                String[] path = exchange.getRequestURI().getRawPath().substring(CONTEXT.length()).split("/");
+
+                if (path.length == 3 && path[0].equals("search") && path[1].equals("resources")) {
+                    search(exchange, URLDecoder.decode(path[2], "UTF-8"));
+                } else if (path.length == 3 && path[0].equals("resources") && path[2].equals("versions")) {
+                    versions(exchange, path[1]);
+                } else {
+                    send(exchange, 404, "{\"error\":\"not found\"}");
+                }
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+
+        }
+
+        /**
+         * Answer a search for a resource by name.
+         *
+         * @param exchange the exchange.
+         * @param name     the searched name.
+         * @throws IOException          if the response could not be written.
+         * @throws InterruptedException if interrupted while sending a slow body.
+         */
+        private void search(HttpExchange exchange, String name) throws IOException, InterruptedException {
+            long id = findId(name);
+            if (id < 0) {
+                send(exchange, 404, "{\"error\":\"no results\"}");
+                return;
+            }
+            send(exchange, 200, "[{\"id\":" + (id + resources) + ",\"name\":\"" + name + " Addon\"},{\"id\":" + id + ",\"name\":\"" + getName((int) (id - FIRST_ID)) + "\"}]");
+        }
+
+        /**
+         * Answer a request for the versions of a resource, honouring If-None-Match.
+         *
+         * @param exchange the exchange.
+         * @param rawId    the resource id from the path.
+         * @throws IOException          if the response could not be written.
+         * @throws InterruptedException if interrupted while sending a slow body.
+         */
+        private void versions(HttpExchange exchange, String rawId) throws IOException, InterruptedException {
+
+            long id;
+
+            try {
+                id = Long.parseLong(rawId);
+            } catch (NumberFormatException e) {
+                id = -1;
+            }
+
+            if (!exists(id)) {
+                send(exchange, 404, "{\"error\":\"resource not found\"}");
+                return;
+            }
+
+            String version = getLatestVersion(id);
+            String etag = "\"" + id + "-" + version + "\"";
+
+            exchange.getResponseHeaders().set("ETag", etag);
+
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                // The JDK server drops the connection after a 304, so say so instead of letting the client reuse it.
+                exchange.getResponseHeaders().set("Connection", "close");
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+
+            send(exchange, 200, "[{\"name\":\"" + version + "\"}]");
+
+        }
+
+        /**
+         * Wait for the configured latency.
+         *
+         * @throws InterruptedException if interrupted while waiting.
+         */
+        private void delay() throws InterruptedException {
+            int millis = latency + (jitter > 0 ? ThreadLocalRandom.current().nextInt(jitter + 1) : 0);
+            if (millis > 0) {
+                Thread.sleep(millis);
+            }
+        }
+
+        /**
+         * Send a JSON response, chunked and slowed down if a chunk delay is set.
+         *
+         * @param exchange the exchange.
+         * @param status   the status code.
+         * @param body     the body.
+         * @throws IOException          if the response could not be written.
+         * @throws InterruptedException if interrupted while sending a slow body.
+         */
+        private void send(HttpExchange exchange, int status, String body) throws IOException, InterruptedException {
+
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+
+            int delay = chunkDelay;
+
+            if (delay <= 0) {
+                exchange.sendResponseHeaders(status, bytes.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(bytes);
+                }
+                return;
+            }
+
+            exchange.sendResponseHeaders(status, 0);
+
+            try (OutputStream out = exchange.getResponseBody()) {
+                int chunk = Math.max(1, bytes.length / 4);
+                for (int offset = 0; offset < bytes.length; offset += chunk) {
+                    out.write(bytes, offset, Math.min(chunk, bytes.length - offset));
+                    out.flush();
+                    Thread.sleep(delay);
+                }
+            }
+
+        }
+
+    }
+
+}
@@ -0,0 +1,246 @@
+package com.rylinaux.plugman.loadtest;
+
+/*
+ * #%L
+ * PlugMan
+ * %%
+ * Copyright (C) 2010 - 2015 PlugMan
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.rylinaux.plugman.pojo.UpdateResult;
+import com.rylinaux.plugman.util.PooledHttpClient;
+import com.rylinaux.plugman.util.RateLimiter;
+import com.rylinaux.plugman.util.SpiGetCache;
+import com.rylinaux.plugman.util.SpiGetClient;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * End-to-end load test of the update check against a local {@link SpiGetStandIn}.
+ * <p>
+ * Checks a configurable number of plugins over several rounds and reports the results, the total time and the
+ * peak heap usage of each round. The first round is cold; later rounds revalidate the cached versions.
+ * <p>
+ * Options are given as key=value arguments:
+ * <ul>
+ * <li>plugins - the number of installed plugins to check (500)</li>
+ * <li>unknown - the fraction of plugins that are not SpiGet resources (0.1)</li>
+ * <li>outdated - the fraction of plugins whose installed version is behind (0.3)</li>
+ * <li>rounds - the number of times the check is run (2)</li>
+ * <li>parallelism - the maximum number of plugins checked at the same time (8)</li>
+ * <li>connections - the maximum number of kept-alive connections (8)</li>
+ * <li>rate - the average number of requests sent per second (1000)</li>
+ * <li>burst - the number of requests that may be sent at once (100)</li>
+ * <li>retries - how often a throttled request is retried (3)</li>
+ * <li>backoff - the delay before the first retry in milliseconds (100)</li>
+ * <li>max-backoff - the longest delay worth waiting for in milliseconds (5000)</li>
+ * <li>latency - the fixed delay of every response in milliseconds (50)</li>
+ * <li>jitter - the maximum random delay added to the latency in milliseconds (25)</li>
+ * <li>failures - the fraction of requests answered with a server error (0.0)</li>
+ * <li>throttle - the fraction of requests answered with 429 Too Many Requests (0.0)</li>
+ * <li>retry-after - the Retry-After value of throttled responses in seconds (1)</li>
+ * <li>chunk-delay - the delay between body chunks in milliseconds (0)</li>
+ * </ul>
+ *
+ * @author rylinaux
+ */
+public class UpdateCheckLoadTest {
+
+    /**
+     * Run the load test.
+     *
+     * @param args the key=value options.
+     * @throws IOException if the stand-in server could not be started.
+     */
+    public static void main(String[] args) throws IOException {
+
+        Map<String, String> options = parse(args);
+
+        int plugins = getInt(options, "plugins", 500);
+        double unknown = getDouble(options, "unknown", 0.1);
+        double outdated = getDouble(options, "outdated", 0.3);
+        int rounds = getInt(options, "rounds", 2);
+        int parallelism = getInt(options, "parallelism", 8);
+        int connections = getInt(options, "connections", 8);
+
+        int resources = plugins - (int) (plugins * unknown);
+
+        SpiGetStandIn standIn = new SpiGetStandIn(resources, Math.max(4, parallelism * 2));
+        standIn.setLatency(getInt(options, "latency", 50));
+        standIn.setJitter(getInt(options, "jitter", 25));
+        standIn.setFailureRate(getDouble(options, "failures", 0));
+        standIn.setThrottleRate(getDouble(options, "throttle", 0));
+        standIn.setRetryAfter(getInt(options, "retry-after", 1));
+        standIn.setChunkDelay(getInt(options, "chunk-delay", 0));
+        standIn.start();
+
+        File cacheFile = File.createTempFile("spiget-cache", ".json");
+        cacheFile.delete();
+        cacheFile.deleteOnExit();
+
+        PooledHttpClient httpClient = new PooledHttpClient(connections, 5000, 10000);
+        SpiGetCache cache = new SpiGetCache(cacheFile, TimeUnit.DAYS.toMillis(1), TimeUnit.DAYS.toMillis(1), 0);
+        RateLimiter rateLimiter = new RateLimiter(getDouble(options, "rate", 1000), getInt(options, "burst", 100));
+        SpiGetClient client = new SpiGetClient(standIn.getBaseUrl(), httpClient, cache, parallelism, rateLimiter,
+                getInt(options, "retries", 3), getInt(options, "backoff", 100), getInt(options, "max-backoff", 5000));
+
+        Map<String, String> currentVersions = new LinkedHashMap<>();
+
+        for (int i = 0; i < plugins; i++) {
+            String version = SpiGetStandIn.getLatestVersion(SpiGetStandIn.FIRST_ID + i);
+            // Some plugins report their version with a prefix, which still counts as up-to-date.
+            if (i % 5 == 0) {
+                version = "v" + version;
+            }
+            currentVersions.put(i < resources ? SpiGetStandIn.getName(i) : "Private" + i, i < plugins * outdated ? "0.9.0" : version);
+        }
+
+        System.out.println("Checking " + plugins + " plugins against " + standIn.getBaseUrl() + " with parallelism " + parallelism);
+
+        try {
+            for (int round = 1; round <= rounds; round++) {
+                run(round, client, httpClient, standIn, currentVersions);
+            }
+        } finally {
+            httpClient.close();
+            standIn.stop();
+        }
+
+    }
+
+    /**
+     * Run one round of the check and print its results.
+     *
+     * @param round           the number of the round.
+     * @param client          the client under test.
+     * @param httpClient      the HTTP client of the client under test.
+     * @param standIn         the stand-in server.
+     * @param currentVersions the plugins to check mapped to their installed versions.
+     */
+    private static void run(int round, SpiGetClient client, PooledHttpClient httpClient, SpiGetStandIn standIn, Map<String, String> currentVersions) {
+
+        final Map<UpdateResult.ResultType, AtomicInteger> counts = new EnumMap<>(UpdateResult.ResultType.class);
+
+        for (UpdateResult.ResultType type : UpdateResult.ResultType.values()) {
+            counts.put(type, new AtomicInteger());
+        }
+
+        long requests = httpClient.getRequests();
+        long newConnections = httpClient.getNewConnections();
+        long retried = client.getThrottled();
+        long served = standIn.getRequests();
+        long notModified = standIn.getNotModified();
+        long failures = standIn.getFailures();
+        long throttled = standIn.getThrottled();
+
+        System.gc();
+
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+
+        long start = System.nanoTime();
+
+        client.checkUpToDate(currentVersions, new SpiGetClient.Callback() {
+            @Override
+            public void onResult(String pluginName, UpdateResult result) {
+                counts.get(result.getType()).incrementAndGet();
+            }
+        });
+
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        long peakHeap = 0;
+
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peakHeap += pool.getPeakUsage().getUsed();
+            }
+        }
+
+        System.out.println();
+        System.out.println("Round " + round + ": " + elapsed + " ms, peak heap " + (peakHeap / (1024 * 1024)) + " MB");
+        System.out.println("  Results: " + counts);
+        System.out.println("  Client: " + (httpClient.getRequests() - requests) + " requests, " + (httpClient.getNewConnections() - newConnections) + " new connections, "
+                + (client.getThrottled() - retried) + " throttled");
+        System.out.println("  Server: " + (standIn.getRequests() - served) + " requests, " + (standIn.getNotModified() - notModified) + " not modified, "
+                + (standIn.getFailures() - failures) + " failed, " + (standIn.getThrottled() - throttled) + " throttled");
+
+    }
+
+    /**
+     * Parse key=value arguments.
+     *
+     * @param args the arguments.
+     * @return the options by key.
+     */
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int index = arg.indexOf('=');
+            if (index < 0) {
+                throw new IllegalArgumentException("Expected key=value but got " + arg);
+            }
+            options.put(arg.substring(0, index).toLowerCase(), arg.substring(index + 1));
+        }
+        return options;
+    }
+
+    /**
+     * Get an integer option.
+     *
+     * @param options      the options.
+     * @param key          the key.
+     * @param defaultValue the value if the option is missing.
+     * @return the value.
+     */
+    private static int getInt(Map<String, String> options, String key, int defaultValue) {
+        String value = options.get(key);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    /**
+     * Get a decimal option.
+     *
+     * @param options      the options.
+     * @param key          the key.
+     * @param defaultValue the value if the option is missing.
+     * @return the value.
+     */
+    private static double getDouble(Map<String, String> options, String key, double defaultValue) {
+        String value = options.get(key);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+}